@@ -84,9 +84,9 @@ public class CommandLineInterface {
                 CommandResult result = command.execute(tableRepository, parsedCommand.getArgs());
 
                 if (result.isSuccess()) {
-                    out.println(result.format());
+                    result.writeTo(out);
                 } else {
-                    err.println(result.format());
+                    result.writeTo(err);
                 }
             } catch (Exception e) {
                 exceptionHandler.handleException(e, "Ошибка при выполнении команды");
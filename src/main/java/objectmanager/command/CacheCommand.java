@@ -0,0 +1,55 @@
+package objectmanager.command;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import objectmanager.command.result.CommandResult;
+import objectmanager.command.result.SuccessResult;
+import objectmanager.command.result.TableResult;
+import objectmanager.query.QueryCache;
+import objectmanager.repository.TableRepository;
+
+/**
+ * Команда для просмотра статистики и очистки кэша результатов запросов
+ */
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+public class CacheCommand extends AbstractCommand {
+
+    public CacheCommand() {
+        super("cache", "Показывает статистику кэша результатов запросов или очищает его", "cache [clear]");
+    }
+
+    @Override
+    protected CommandResult executeCommand(TableRepository tableRepository, List<String> args) {
+        QueryCache cache = tableRepository.getQueryCache();
+        if (!args.isEmpty()) {
+            cache.clear();
+            return new SuccessResult("Кэш результатов запросов очищен.");
+        }
+        if (!cache.isEnabled()) {
+            return new SuccessResult("Кэш результатов запросов отключен (app.query.cache-entries, app.query.cache-mb).");
+        }
+
+        QueryCache.Stats stats = cache.stats();
+        return new TableResult.Builder()
+                .withTitle("Кэш результатов запросов")
+                .withHeaders(Arrays.asList("Показатель", "Значение"))
+                .addRow(Arrays.asList("Записей", stats.entries() + " из " + stats.maxEntries()))
+                .addRow(Arrays.asList("Память, КБ", stats.usedBytes() / 1024 + " из " + stats.maxBytes() / 1024))
+                .addRow(Arrays.asList("Попаданий", String.valueOf(stats.hits())))
+                .addRow(Arrays.asList("Промахов", String.valueOf(stats.misses())))
+                .addRow(Arrays.asList("Доля попаданий, %", String.format("%.1f", stats.hitRate())))
+                .addRow(Arrays.asList("Вытеснено", String.valueOf(stats.evictions())))
+                .build();
+    }
+
+    @Override
+    public boolean validateArgs(List<String> args) {
+        return args.isEmpty() || args.size() == 1 && args.get(0).equalsIgnoreCase("clear");
+    }
+}
@@ -0,0 +1,80 @@
+package objectmanager.command;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import objectmanager.command.result.CommandResult;
+import objectmanager.command.result.ErrorResult;
+import objectmanager.command.result.SuccessResult;
+import objectmanager.model.Compression;
+import objectmanager.model.DataFormat;
+import objectmanager.model.DataTable;
+import objectmanager.model.StorageType;
+import objectmanager.model.TableSchema;
+import objectmanager.repository.TableRepository;
+
+/**
+ * Команда для перевода файла данных таблицы в другой формат
+ */
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+public class ConvertCommand extends AbstractCommand {
+
+    public ConvertCommand() {
+        super("convert", "Переводит файл данных таблицы в двоичный формат или JSON; "
+                + "mapped - двоичный файл, отображаемый в память только для чтения; "
+                + "deflate - сжатие файла блоками",
+                "convert <имя_таблицы> binary|json|mapped [none|deflate]");
+    }
+
+    @Override
+    protected CommandResult executeCommand(TableRepository tableRepository, List<String> args) throws Exception {
+        String tableName = args.get(0);
+        Optional<DataTable> table = tableRepository.findTable(tableName);
+        if (table.isEmpty()) {
+            return new ErrorResult("Таблица не найдена: " + tableName);
+        }
+
+        String target = args.get(1);
+        TableSchema schema = table.get().getSchema();
+        DataFormat format;
+        Compression compression = schema.getCompression();
+        StorageType storageType = schema.getStorageType();
+        try {
+            if (args.size() > 2) {
+                compression = Compression.fromName(args.get(2));
+            }
+            if (StorageType.MAPPED.getName().equalsIgnoreCase(target)) {
+                format = DataFormat.BINARY;
+                storageType = StorageType.MAPPED;
+                if (compression != Compression.NONE && args.size() > 2) {
+                    return new ErrorResult("Отобразить в память можно только несжатый файл");
+                }
+                compression = Compression.NONE;
+            } else {
+                format = DataFormat.fromName(target);
+                if (storageType == StorageType.MAPPED) {
+                    // Данные возвращаются в кучу и снова доступны для записи
+                    storageType = StorageType.ROW;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            return new ErrorResult(e.getMessage() + ". Использование: " + getSyntax());
+        }
+
+        String description = target + (compression == Compression.NONE ? "" : " (" + compression.getName() + ")");
+        if (!tableRepository.convertTable(tableName, format, compression, storageType)) {
+            return new SuccessResult("Таблица '" + tableName + "' уже хранится в формате " + description + ".");
+        }
+        return new SuccessResult("Таблица '" + tableName + "' переведена в формат " + description + ".");
+    }
+
+    @Override
+    public boolean validateArgs(List<String> args) {
+        return args.size() == 2 || args.size() == 3;
+    }
+}
@@ -1,21 +1,29 @@
 package objectmanager.command;
 
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 
 import objectmanager.command.result.CommandResult;
 import objectmanager.command.result.ErrorResult;
 import objectmanager.command.result.SuccessResult;
+import objectmanager.model.Compression;
+import objectmanager.model.DataFormat;
+import objectmanager.model.DataTable;
+import objectmanager.model.FieldType;
+import objectmanager.model.StorageType;
 import objectmanager.model.TableSchema;
+import objectmanager.model.index.IndexType;
 import objectmanager.repository.TableRepository;
 
 /**
@@ -27,12 +35,16 @@ import objectmanager.repository.TableRepository;
 public class CreateCommand extends AbstractCommand {
 
     public CreateCommand() {
-        super("create", "Создает новую таблицу на основе JSON-схемы",
-                "create <имя_таблицы> <json_схема>");
+        super("create", "Создает новую таблицу на основе JSON-схемы или индекс по полю таблицы",
+                "create <имя_таблицы> <json_схема> | create index <имя_таблицы> <поле> [hash|ordered]");
     }
 
     @Override
     protected CommandResult executeCommand(TableRepository tableRepository, List<String> args) {
+        if (isCreateIndex(args)) {
+            return createIndex(tableRepository, args);
+        }
+
         String tableName = args.get(0);
         String jsonSchema = String.join(" ", args.subList(1, args.size()));
 
@@ -44,11 +56,17 @@ public class CreateCommand extends AbstractCommand {
             }
 
             JsonObject fieldsObject = jsonObject.getAsJsonObject("fields");
-            Map<String, String> fields = new HashMap<>();
-
-            fieldsObject.entrySet().forEach(entry -> {
-                fields.put(entry.getKey(), entry.getValue().getAsString());
-            });
+            Map<String, String> fields = new LinkedHashMap<>();
+
+            for (Map.Entry<String, JsonElement> entry : fieldsObject.entrySet()) {
+                String fieldType = entry.getValue().getAsString();
+                try {
+                    fields.put(entry.getKey(), FieldType.fromName(fieldType).getName());
+                } catch (IllegalArgumentException e) {
+                    return new ErrorResult("Ошибка в схеме: неизвестный тип поля '" + entry.getKey() + "': " + fieldType
+                            + ". Допустимые типы: string, int, long, double, boolean, timestamp.");
+                }
+            }
 
             if (fields.isEmpty()) {
                 return new ErrorResult("Ошибка в схеме: таблица должна содержать хотя бы одно поле.");
@@ -64,6 +82,22 @@ public class CreateCommand extends AbstractCommand {
                 schema.setDescription("Таблица " + tableName);
             }
 
+            if (jsonObject.has("storage") && jsonObject.get("storage").isJsonPrimitive()) {
+                schema.setStorageType(StorageType.fromName(jsonObject.get("storage").getAsString()));
+            }
+
+            if (jsonObject.has("format") && jsonObject.get("format").isJsonPrimitive()) {
+                schema.setDataFormat(DataFormat.fromName(jsonObject.get("format").getAsString()));
+            }
+
+            if (jsonObject.has("compression") && jsonObject.get("compression").isJsonPrimitive()) {
+                schema.setCompression(Compression.fromName(jsonObject.get("compression").getAsString()));
+            }
+
+            if (schema.getStorageType() == StorageType.MAPPED) {
+                return new ErrorResult("Хранилище mapped задается для заполненной таблицы командой convert");
+            }
+
             boolean created = tableRepository.createTable(schema);
 
             if (created) {
@@ -79,6 +113,45 @@ public class CreateCommand extends AbstractCommand {
         }
     }
 
+    /**
+     * Отличает "create index <таблица> <поле>" от создания таблицы с именем
+     * index, у которой вторым аргументом идет JSON-схема
+     */
+    private boolean isCreateIndex(List<String> args) {
+        return args.size() >= 3 && args.get(0).equalsIgnoreCase("index") && !args.get(1).startsWith("{");
+    }
+
+    private CommandResult createIndex(TableRepository tableRepository, List<String> args) {
+        String tableName = args.get(1);
+        String fieldName = args.get(2);
+
+        if (args.size() > 4) {
+            return new ErrorResult("Неверные аргументы. Использование: create index <имя_таблицы> <поле> [hash|ordered]");
+        }
+
+        Optional<DataTable> table = tableRepository.findTable(tableName);
+        if (table.isEmpty()) {
+            return new ErrorResult("Таблица не найдена: " + tableName);
+        }
+        if (!table.get().getSchema().getFieldNames().contains(fieldName)) {
+            return new ErrorResult("Поле не найдено: " + fieldName);
+        }
+
+        try {
+            IndexType indexType = args.size() == 4 ? IndexType.fromName(args.get(3)) : IndexType.HASH;
+
+            if (!tableRepository.createIndex(tableName, fieldName, indexType)) {
+                return new ErrorResult("Индекс по полю '" + fieldName + "' уже существует.");
+            }
+            return new SuccessResult("Индекс (" + indexType.getName() + ") по полю '" + fieldName
+                    + "' таблицы '" + tableName + "' успешно создан.");
+        } catch (IllegalArgumentException e) {
+            return new ErrorResult(e.getMessage());
+        } catch (IOException e) {
+            return new ErrorResult("Ошибка при сохранении схемы: " + e.getMessage(), e);
+        }
+    }
+
     @Override
     public boolean validateArgs(List<String> args) {
         return args.size() >= 2;
@@ -0,0 +1,84 @@
+package objectmanager.command;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiFunction;
+
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import objectmanager.command.result.CommandResult;
+import objectmanager.command.result.ErrorResult;
+import objectmanager.command.result.SuccessResult;
+import objectmanager.model.DataTable;
+import objectmanager.model.TableSnapshot;
+import objectmanager.query.Expression;
+import objectmanager.query.ExpressionParser;
+import objectmanager.repository.TableRepository;
+
+/**
+ * Команда для удаления строк таблицы. Строки только помечаются удаленными,
+ * место освобождается при уплотнении таблицы
+ */
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+public class DeleteCommand extends AbstractCommand {
+
+    public DeleteCommand() {
+        super("delete", "Удаляет строки таблицы, удовлетворяющие условию",
+                "delete [from] <имя_таблицы> [where <условие>]");
+    }
+
+    @Override
+    protected CommandResult executeCommand(TableRepository tableRepository, List<String> args) throws Exception {
+        int tableIndex = args.get(0).equalsIgnoreCase("from") && args.size() > 1 ? 1 : 0;
+        String tableName = args.get(tableIndex);
+        Optional<DataTable> table = tableRepository.findTable(tableName);
+        if (table.isEmpty()) {
+            return new ErrorResult("Таблица не найдена: " + tableName);
+        }
+
+        int deleted;
+        try {
+            BiFunction<DataTable, TableSnapshot, int[]> rowMatcher = rowMatcher(
+                    args.subList(tableIndex + 1, args.size()));
+            if (rowMatcher == null) {
+                return new ErrorResult("Неверные аргументы. Использование: " + getSyntax());
+            }
+            deleted = tableRepository.deleteRows(tableName, rowMatcher);
+        } catch (IllegalArgumentException e) {
+            return new ErrorResult("Неверный запрос: " + e.getMessage());
+        }
+        return new SuccessResult(String.format("Из таблицы '%s' удалено строк: %d.", tableName, deleted));
+    }
+
+    /**
+     * Разбирает условие и строит поиск неудаленных строк снимка, которые ему
+     * удовлетворяют, по индексу или просмотром снимка. Таблицу, индексы
+     * которой соответствуют снимку, передает репозиторий
+     *
+     * @param clause аргументы {@code where <условие>} или пустой список для
+     * всех строк
+     * @return поиск строк или null, если аргументы не начинаются с where
+     * @throws IllegalArgumentException если условие записано с ошибкой
+     */
+    static BiFunction<DataTable, TableSnapshot, int[]> rowMatcher(List<String> clause) {
+        if (clause.isEmpty()) {
+            return (table, snapshot) -> snapshot.filterRowIds(row -> true);
+        }
+        if (!clause.get(0).equalsIgnoreCase("where") || clause.size() == 1) {
+            return null;
+        }
+        Expression where = ExpressionParser.parse(String.join(" ", clause.subList(1, clause.size())));
+        return (table, snapshot) -> {
+            int[] rows = where.findByIndex(table, snapshot);
+            return rows != null ? rows : snapshot.filterRowIds(where.compile(snapshot));
+        };
+    }
+
+    @Override
+    public boolean validateArgs(List<String> args) {
+        return !args.isEmpty();
+    }
+}
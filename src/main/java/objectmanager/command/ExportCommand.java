@@ -0,0 +1,94 @@
+package objectmanager.command;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.IntPredicate;
+
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import objectmanager.command.result.CommandResult;
+import objectmanager.command.result.ErrorResult;
+import objectmanager.command.result.SuccessResult;
+import objectmanager.model.DataTable;
+import objectmanager.model.TableSnapshot;
+import objectmanager.persistence.DataExporter;
+import objectmanager.persistence.ExchangeFormat;
+import objectmanager.query.Expression;
+import objectmanager.query.ExpressionParser;
+import objectmanager.repository.TableRepository;
+
+/**
+ * Команда для выгрузки строк таблицы в файл JSON Lines или CSV. Строки
+ * записываются из снимка таблицы по мере проверки условия
+ */
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+public class ExportCommand extends AbstractCommand {
+
+    public ExportCommand() {
+        super("export", "Выгружает строки таблицы в файл JSON Lines или CSV",
+                "export <имя_таблицы> <файл> [jsonl|csv] [where <условие>]");
+    }
+
+    @Override
+    protected CommandResult executeCommand(TableRepository tableRepository, List<String> args) throws Exception {
+        String tableName = args.get(0);
+        Optional<DataTable> table = tableRepository.findTable(tableName);
+        if (table.isEmpty()) {
+            return new ErrorResult("Таблица не найдена: " + tableName);
+        }
+
+        // Относительный путь отсчитывается от рабочей директории
+        Path file = tableRepository.getWorkingDirectory().resolve(args.get(1)).normalize();
+        int whereIndex = 2;
+        ExchangeFormat format = ExchangeFormat.fromFileName(file);
+        Expression where = null;
+        try {
+            if (args.size() > 2 && !args.get(2).equalsIgnoreCase("where")) {
+                format = ExchangeFormat.fromName(args.get(2));
+                whereIndex = 3;
+            }
+            if (args.size() > whereIndex) {
+                if (!args.get(whereIndex).equalsIgnoreCase("where") || args.size() == whereIndex + 1) {
+                    return new ErrorResult("Неверные аргументы. Использование: " + getSyntax());
+                }
+                where = ExpressionParser.parse(String.join(" ", args.subList(whereIndex + 1, args.size())));
+            }
+        } catch (IllegalArgumentException e) {
+            return new ErrorResult("Неверный запрос: " + e.getMessage());
+        }
+
+        TableSnapshot snapshot = table.get().snapshot();
+        int[] rowIds = null;
+        IntPredicate condition = null;
+        try {
+            if (where != null) {
+                rowIds = where.findByIndex(table.get(), snapshot);
+                condition = rowIds == null ? where.compile(snapshot) : null;
+            }
+        } catch (IllegalArgumentException e) {
+            return new ErrorResult("Неверный запрос: " + e.getMessage());
+        }
+
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        long start = System.nanoTime();
+        long rowCount = new DataExporter().export(snapshot, rowIds, condition, file, format);
+        double seconds = Math.max((System.nanoTime() - start) / 1e9, 1e-9);
+        double megabytes = Files.size(file) / (1024.0 * 1024.0);
+
+        return new SuccessResult(String.format("Из таблицы '%s' выгружено %d строк в %s (%s, %.1f МБ) "
+                + "за %.2f с: %.0f строк/с, %.1f МБ/с.", tableName, rowCount, file, format.getName(),
+                megabytes, seconds, rowCount / seconds, megabytes / seconds));
+    }
+
+    @Override
+    public boolean validateArgs(List<String> args) {
+        return args.size() >= 2;
+    }
+}
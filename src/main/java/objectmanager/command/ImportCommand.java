@@ -0,0 +1,84 @@
+package objectmanager.command;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import objectmanager.command.result.CommandResult;
+import objectmanager.command.result.ErrorResult;
+import objectmanager.command.result.SuccessResult;
+import objectmanager.model.DataTable;
+import objectmanager.persistence.DataImporter;
+import objectmanager.persistence.ExchangeFormat;
+import objectmanager.repository.TableRepository;
+import objectmanager.service.AsyncService;
+
+/**
+ * Команда для пакетной загрузки строк из файла. Файл разбирается и
+ * проверяется по схеме целиком до добавления строк, поэтому при ошибке в
+ * любой строке таблица не изменяется. Разобранный файл целиком хранится в
+ * памяти до добавления, поэтому размер файла ограничен объемом кучи
+ */
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+public class ImportCommand extends AbstractCommand {
+
+    private final AsyncService asyncService;
+
+    @Autowired
+    public ImportCommand(AsyncService asyncService) {
+        super("import", "Загружает строки в таблицу из файла JSON Lines или CSV с заголовком",
+                "import <имя_таблицы> <файл> [jsonl|csv]");
+        this.asyncService = asyncService;
+    }
+
+    @Override
+    protected CommandResult executeCommand(TableRepository tableRepository, List<String> args) throws Exception {
+        String tableName = args.get(0);
+        Optional<DataTable> table = tableRepository.findTable(tableName);
+        if (table.isEmpty()) {
+            return new ErrorResult("Таблица не найдена: " + tableName);
+        }
+
+        // Относительный путь отсчитывается от рабочей директории
+        Path file = tableRepository.getWorkingDirectory().resolve(args.get(1)).normalize();
+        if (!Files.isRegularFile(file)) {
+            return new ErrorResult("Файл не найден: " + file);
+        }
+        ExchangeFormat format;
+        try {
+            format = args.size() > 2 ? ExchangeFormat.fromName(args.get(2)) : ExchangeFormat.fromFileName(file);
+        } catch (IllegalArgumentException e) {
+            return new ErrorResult(e.getMessage() + ". Использование: " + getSyntax());
+        }
+
+        long start = System.nanoTime();
+        List<Object[][]> chunks;
+        try {
+            chunks = new DataImporter(asyncService.getExecutor()).parse(file, table.get().getSchema(), format);
+        } catch (IllegalArgumentException e) {
+            return new ErrorResult("Ошибка в файле " + file.getFileName() + ": " + e.getMessage()
+                    + ". Строки не добавлены.");
+        }
+        long rowCount = chunks.stream().mapToLong(chunk -> chunk.length).sum();
+        if (rowCount == 0) {
+            return new SuccessResult("В файле нет строк для загрузки.");
+        }
+        tableRepository.insertAll(tableName, chunks);
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        return new SuccessResult(String.format("В таблицу '%s' загружено %d строк за %.2f с (%.0f строк/с).",
+                tableName, rowCount, seconds, rowCount / Math.max(seconds, 1e-9)));
+    }
+
+    @Override
+    public boolean validateArgs(List<String> args) {
+        return args.size() == 2 || args.size() == 3;
+    }
+}
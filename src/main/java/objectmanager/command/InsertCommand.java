@@ -57,8 +57,7 @@ public class InsertCommand extends AbstractCommand {
                 newObject.setValue(fieldName, element.getAsString());
             }
 
-            dataTable.addDataObject(newObject);
-            tableRepository.markTableAsDirty(tableName);
+            tableRepository.insert(tableName, newObject);
 
             return new SuccessResult("Объект успешно добавлен в таблицу.");
         } catch (Exception e) {
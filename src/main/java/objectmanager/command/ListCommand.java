@@ -12,6 +12,7 @@ import objectmanager.command.result.CommandResult;
 import objectmanager.command.result.SuccessResult;
 import objectmanager.command.result.TableResult;
 import objectmanager.model.DataTable;
+import objectmanager.model.TableSchema;
 import objectmanager.repository.TableRepository;
 
 /**
@@ -28,9 +29,10 @@ public class ListCommand extends AbstractCommand {
 
     @Override
     protected CommandResult executeCommand(TableRepository tableRepository, List<String> args) {
-        Map<String, DataTable> tables = tableRepository.getAllTables();
+        Map<String, TableSchema> schemas = tableRepository.getTableSchemas();
+        Map<String, DataTable> loadedTables = tableRepository.getAllTables();
 
-        if (tables.isEmpty()) {
+        if (schemas.isEmpty()) {
             return new SuccessResult("Таблицы не найдены.");
         }
 
@@ -38,20 +40,21 @@ public class ListCommand extends AbstractCommand {
                 .withTitle("Доступные таблицы")
                 .withHeaders(Arrays.asList("Имя таблицы", "Кол-во объектов", "Описание"));
 
-        for (Map.Entry<String, DataTable> entry : tables.entrySet()) {
+        for (Map.Entry<String, TableSchema> entry : schemas.entrySet()) {
             String tableName = entry.getKey();
-            DataTable table = entry.getValue();
-            String description = table.getSchema().getDescription();
-            int objectCount = table.getObjectCount();
+            DataTable table = loadedTables.get(tableName);
+            // Список не загружает данные таблиц: для незагруженных количество неизвестно
+            String objectCount = table == null ? "-" : String.valueOf(table.getObjectCount());
 
             resultBuilder.addRow(Arrays.asList(
                     tableName,
-                    String.valueOf(objectCount),
-                    description
+                    objectCount,
+                    entry.getValue().getDescription()
             ));
         }
 
-        return resultBuilder.withFooter("Всего таблиц: " + tables.size()).build();
+        return resultBuilder.withFooter("Всего таблиц: " + schemas.size()
+                + ", загружено в память: " + loadedTables.size()).build();
     }
 
     @Override
@@ -1,6 +1,5 @@
 package objectmanager.command;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -13,9 +12,13 @@ import objectmanager.command.result.CommandResult;
 import objectmanager.command.result.ErrorResult;
 import objectmanager.command.result.SuccessResult;
 import objectmanager.command.result.TableResult;
-import objectmanager.model.DataObject;
 import objectmanager.model.DataTable;
-import objectmanager.model.TableSchema;
+import objectmanager.query.OrderBy;
+import objectmanager.query.Query;
+import objectmanager.query.QueryCache;
+import objectmanager.query.QueryExecutor;
+import objectmanager.query.QueryParser;
+import objectmanager.query.QueryResult;
 import objectmanager.repository.TableRepository;
 
 /**
@@ -27,75 +30,98 @@ public class SelectCommand extends AbstractCommand {
 
     public SelectCommand() {
         super("select", "Выбирает данные из таблицы по условию",
-                "select <имя_таблицы> [where <поле> = <значение>]");
+                "select [<значение>, ... from] <имя_таблицы> [join <таблица> on <поле> = <поле>]\n"
+                + "  [where <условие>] [group by <поле>, ...]\n"
+                + "  [order by <значение> [asc|desc], ...] [limit <n>] [offset <m>]\n"
+                + "  значение: поле, count(*), count(поле), sum(поле), avg(поле), min(поле), max(поле)\n"
+                + "  условие: поле =|!=|<|<=|>|>= значение, поле [not] between a and b,\n"
+                + "  поле [not] in (a, b, ...), поле [not] like 'шаблон%', поле is [not] null,\n"
+                + "  объединенные and, or, not и скобками\n"
+                + "  в запросе с join поля указываются как таблица.поле или без таблицы, если имя однозначно");
     }
 
     @Override
     protected CommandResult executeCommand(TableRepository tableRepository, List<String> args) {
-        String tableName = args.get(0);
-
-        boolean hasWhereClause = args.size() > 1 && args.get(1).equalsIgnoreCase("where");
+        Query query;
+        try {
+            query = QueryParser.parse(args);
+        } catch (IllegalArgumentException e) {
+            return new ErrorResult("Неверный запрос: " + e.getMessage());
+        }
 
+        String tableName = query.getTableName();
         Optional<DataTable> table = tableRepository.findTable(tableName);
         if (table.isEmpty()) {
             return new ErrorResult("Таблица не найдена: " + tableName);
         }
 
-        DataTable dataTable = table.get();
-        TableSchema schema = dataTable.getSchema();
-
-        List<DataObject> filteredObjects;
-
-        if (hasWhereClause) {
-            if (args.size() < 4) {
-                return new ErrorResult("Неверный формат условия WHERE. Используйте: where <поле> = <значение>");
+        Optional<DataTable> joinedTable = Optional.empty();
+        if (query.getJoin() != null) {
+            joinedTable = tableRepository.findTable(query.getJoin().tableName());
+            if (joinedTable.isEmpty()) {
+                return new ErrorResult("Таблица не найдена: " + query.getJoin().tableName());
             }
+        }
 
-            String fieldName = args.get(2);
-
-            if (!args.get(3).equals("=")) {
-                return new ErrorResult("Поддерживается только оператор '='.");
+        // Результаты соединения не кэшируются: они удерживают массивы пар строк
+        QueryCache cache = tableRepository.getQueryCache();
+        long version = tableRepository.getTableVersion(tableName);
+        String queryText = String.join(" ", args);
+        QueryResult result = joinedTable.isPresent() ? null : cache.get(tableName, version, queryText);
+        boolean cached = result != null;
+        if (!cached) {
+            try {
+                result = joinedTable.isPresent()
+                        ? QueryExecutor.execute(table.get(), joinedTable.get(), query,
+                                tableRepository.getJoinMemoryLimit())
+                        : QueryExecutor.execute(table.get(), query);
+            } catch (IllegalArgumentException e) {
+                return new ErrorResult("Неверный запрос: " + e.getMessage());
             }
-
-            String value = String.join(" ", args.subList(4, args.size()));
-
-            if (!schema.getFieldNames().contains(fieldName)) {
-                return new ErrorResult("Поле не найдено: " + fieldName);
+            if (joinedTable.isEmpty() && tableRepository.getTableVersion(tableName) == version) {
+                cache.put(tableName, version, queryText, result);
             }
-
-            filteredObjects = dataTable.getDataObjects().parallelStream()
-                    .filter(obj -> {
-                        String fieldValue = obj.getValue(fieldName);
-                        return fieldValue != null && fieldValue.equals(value);
-                    })
-                    .collect(Collectors.toList());
-        } else {
-            filteredObjects = dataTable.getDataObjects();
         }
 
-        if (filteredObjects.isEmpty()) {
+        boolean hasWhereClause = query.getWhere() != null;
+        if (result.size() == 0) {
             return new SuccessResult("Не найдено объектов" + (hasWhereClause ? ", соответствующих условию." : "."));
         }
 
-        String title = "Найдено " + filteredObjects.size() + " объектов"
-                + (hasWhereClause ? " по условию" : "");
+        String title;
+        if (query.isAggregate()) {
+            title = query.getGroupBy().isEmpty() ? "Результат агрегации"
+                    : "Групп: " + result.size() + ", группировка по " + String.join(", ", query.getGroupBy());
+        } else {
+            title = (query.hasLimit() || query.getOffset() > 0 ? "Выбрано " : "Найдено ")
+                    + result.size() + " объектов" + (hasWhereClause ? " по условию" : "");
+        }
 
         TableResult.Builder resultBuilder = new TableResult.Builder()
                 .withTitle(title)
-                .withHeaders(schema.getFieldNames());
-
-        for (DataObject obj : filteredObjects) {
-            List<String> row = new ArrayList<>();
-            for (String field : schema.getFieldNames()) {
-                String value = obj.getValue(field);
-                row.add(value == null ? "" : value);
-            }
-            resultBuilder.addRow(row);
-        }
+                .withHeaders(result.getFieldNames())
+                .withRows(result.size(), result::getValue);
 
         String footer = hasWhereClause
-                ? "Условие: " + args.get(2) + " = " + String.join(" ", args.subList(4, args.size()))
+                ? "Условие: " + query.getWhere() + (result.isIndexed() ? " (по индексу)" : "")
                 : "Все объекты таблицы";
+        if (query.getJoin() != null) {
+            footer += ", соединение с " + query.getJoin().tableName() + " по "
+                    + query.getJoin().leftField() + " = " + query.getJoin().rightField();
+        }
+        if (!query.getOrderBy().isEmpty()) {
+            footer += ", сортировка: " + query.getOrderBy().stream()
+                    .map(OrderBy::toString)
+                    .collect(Collectors.joining(", "));
+        }
+        if (query.hasLimit() || query.getOffset() > 0) {
+            footer += ", строки с " + (query.getOffset() + 1)
+                    + (query.hasLimit() ? " по " + ((long) query.getOffset() + query.getLimit()) : "");
+        }
+
+        if (cached) {
+            footer += " (из кэша)";
+        }
 
         return resultBuilder.withFooter(footer).build();
     }
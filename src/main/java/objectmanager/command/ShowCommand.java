@@ -11,8 +11,10 @@ import org.springframework.stereotype.Component;
 import objectmanager.command.result.CommandResult;
 import objectmanager.command.result.ErrorResult;
 import objectmanager.command.result.SuccessResult;
+import objectmanager.model.Compression;
 import objectmanager.model.DataTable;
 import objectmanager.model.TableSchema;
+import objectmanager.model.index.TableIndex;
 import objectmanager.repository.TableRepository;
 
 /**
@@ -40,7 +42,13 @@ public class ShowCommand extends AbstractCommand {
 
         StringBuilder result = new StringBuilder();
         result.append("Схема таблицы: ").append(tableName).append("\n");
-        result.append("Описание: ").append(schema.getDescription()).append("\n\n");
+        result.append("Описание: ").append(schema.getDescription()).append("\n");
+        result.append("Хранилище: ").append(schema.getStorageType().getName()).append("\n");
+        result.append("Формат файла: ").append(schema.getDataFormat().getName());
+        if (schema.getCompression() != Compression.NONE) {
+            result.append(", сжатие ").append(schema.getCompression().getName());
+        }
+        result.append("\n\n");
         result.append("Поля:\n");
 
         Map<String, String> fields = schema.getFields();
@@ -49,6 +57,15 @@ public class ShowCommand extends AbstractCommand {
                     .append(" (").append(field.getValue()).append(")\n");
         }
 
+        if (!table.getIndexes().isEmpty()) {
+            result.append("\nИндексы:\n");
+            for (TableIndex index : table.getIndexes()) {
+                result.append("  ").append(index.getFieldName())
+                        .append(" (").append(index.getType().getName())
+                        .append(", значений: ").append(index.getKeyCount()).append(")\n");
+            }
+        }
+
         result.append("\nКоличество объектов: ").append(table.getObjectCount());
 
         return new SuccessResult(result.toString());
@@ -0,0 +1,79 @@
+package objectmanager.command;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiFunction;
+
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import objectmanager.command.result.CommandResult;
+import objectmanager.command.result.ErrorResult;
+import objectmanager.command.result.SuccessResult;
+import objectmanager.model.DataTable;
+import objectmanager.model.TableSchema;
+import objectmanager.model.TableSnapshot;
+import objectmanager.query.ExpressionParser;
+import objectmanager.repository.TableRepository;
+
+/**
+ * Команда для изменения значений полей в строках таблицы. Измененная строка
+ * записывается новой версией в конец таблицы, а старая помечается удаленной
+ */
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+public class UpdateCommand extends AbstractCommand {
+
+    public UpdateCommand() {
+        super("update", "Изменяет значения полей в строках таблицы, удовлетворяющих условию",
+                "update <имя_таблицы> set <поле> = <значение>[, ...] [where <условие>]");
+    }
+
+    @Override
+    protected CommandResult executeCommand(TableRepository tableRepository, List<String> args) throws Exception {
+        String tableName = args.get(0);
+        Optional<DataTable> table = tableRepository.findTable(tableName);
+        if (table.isEmpty()) {
+            return new ErrorResult("Таблица не найдена: " + tableName);
+        }
+        if (!args.get(1).equalsIgnoreCase("set")) {
+            return new ErrorResult("Неверные аргументы. Использование: " + getSyntax());
+        }
+        int whereIndex = 2;
+        while (whereIndex < args.size() && !args.get(whereIndex).equalsIgnoreCase("where")) {
+            whereIndex++;
+        }
+
+        TableSchema schema = table.get().getSchema();
+        Map<Integer, Object> changes = new HashMap<>();
+        int updated;
+        try {
+            Map<String, String> assignments = ExpressionParser.parseAssignments(
+                    String.join(" ", args.subList(2, whereIndex)));
+            for (Map.Entry<String, String> assignment : assignments.entrySet()) {
+                int fieldIndex = schema.getFieldIndex(assignment.getKey());
+                if (fieldIndex < 0) {
+                    return new ErrorResult("Поле не найдено: " + assignment.getKey());
+                }
+                changes.put(fieldIndex, schema.getDataType(fieldIndex).parse(assignment.getValue()));
+            }
+            BiFunction<DataTable, TableSnapshot, int[]> rowMatcher = DeleteCommand.rowMatcher(
+                    args.subList(whereIndex, args.size()));
+            if (rowMatcher == null) {
+                return new ErrorResult("Неверные аргументы. Использование: " + getSyntax());
+            }
+            updated = tableRepository.updateRows(tableName, rowMatcher, changes);
+        } catch (IllegalArgumentException e) {
+            return new ErrorResult("Неверный запрос: " + e.getMessage());
+        }
+        return new SuccessResult(String.format("В таблице '%s' изменено строк: %d.", tableName, updated));
+    }
+
+    @Override
+    public boolean validateArgs(List<String> args) {
+        return args.size() >= 3;
+    }
+}
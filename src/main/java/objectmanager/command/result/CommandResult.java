@@ -1,5 +1,7 @@
 package objectmanager.command.result;
 
+import java.io.PrintStream;
+
 /**
  * Интерфейс результата выполнения команды (паттерн Command)
  */
@@ -10,4 +12,13 @@ public interface CommandResult {
     String getMessage();
 
     String format();
+
+    /**
+     * Выводит результат в поток с переводом строки в конце. Результаты
+     * большого объема переопределяют метод, чтобы не собирать весь вывод в
+     * одной строке
+     */
+    default void writeTo(PrintStream out) {
+        out.println(format());
+    }
 }
@@ -1,22 +1,50 @@
 package objectmanager.command.result;
 
+import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Результат в виде таблицы (паттерн Formatter/Template)
+ * Результат в виде таблицы (паттерн Formatter/Template). Строки выводятся
+ * потоком, страницами по {@link #PAGE_SIZE} строк: ширина колонок оценивается
+ * по первым {@link #WIDTH_SAMPLE_SIZE} строкам, а значения, не
+ * уместившиеся в оценку, выводятся целиком
  */
 public class TableResult implements CommandResult {
 
+    private static final int PAGE_SIZE = 1000;
+    private static final int WIDTH_SAMPLE_SIZE = 1000;
+    private static final int MIN_COLUMN_WIDTH = 10;
+
+    /**
+     * Источник значений ячеек таблицы; значения запрашиваются при выводе
+     */
+    @FunctionalInterface
+    public interface CellSource {
+
+        /**
+         * @return значение ячейки или null для пустого значения
+         */
+        String get(int row, int column);
+    }
+
     private final String title;
     private final List<String> headers;
-    private final List<List<String>> rows;
+    private final int rowCount;
+    private final CellSource cells;
     private final String footer;
 
     private TableResult(Builder builder) {
         this.title = builder.title;
         this.headers = builder.headers;
-        this.rows = builder.rows;
+        if (builder.cells != null) {
+            this.rowCount = builder.rowCount;
+            this.cells = builder.cells;
+        } else {
+            List<List<String>> rows = builder.rows;
+            this.rowCount = rows.size();
+            this.cells = (row, column) -> rows.get(row).get(column);
+        }
         this.footer = builder.footer;
     }
 
@@ -32,22 +60,41 @@ public class TableResult implements CommandResult {
 
     @Override
     public String format() {
-        if (rows.isEmpty()) {
-            return "Нет данных для отображения.";
-        }
-
         StringBuilder sb = new StringBuilder();
+        render(sb, null);
+        return sb.toString();
+    }
+
+    /**
+     * Выводит таблицу в поток страницами, не собирая весь вывод в памяти
+     */
+    @Override
+    public void writeTo(PrintStream out) {
+        StringBuilder page = new StringBuilder();
+        render(page, out);
+        out.println(page);
+    }
+
+    /**
+     * Формирует вывод в буфер; если задан поток, каждая заполненная страница
+     * сбрасывается в него и буфер очищается
+     */
+    private void render(StringBuilder sb, PrintStream out) {
+        if (rowCount == 0) {
+            sb.append("Нет данных для отображения.");
+            return;
+        }
 
         if (title != null && !title.isEmpty()) {
             sb.append(title).append('\n');
             sb.append("=".repeat(Math.max(50, title.length()))).append('\n');
         }
 
-        int[] columnWidths = calculateColumnWidths();
+        int[] columnWidths = estimateColumnWidths();
 
         if (!headers.isEmpty()) {
             for (int i = 0; i < headers.size(); i++) {
-                sb.append(String.format("%-" + columnWidths[i] + "s | ", headers.get(i)));
+                appendCell(sb, headers.get(i), columnWidths[i]);
             }
             sb.append('\n');
 
@@ -57,39 +104,53 @@ public class TableResult implements CommandResult {
             sb.append('\n');
         }
 
-        for (List<String> row : rows) {
-            for (int i = 0; i < row.size(); i++) {
-                sb.append(String.format("%-" + columnWidths[i] + "s | ", row.get(i)));
+        for (int row = 0; row < rowCount; row++) {
+            for (int column = 0; column < columnWidths.length; column++) {
+                appendCell(sb, cells.get(row, column), columnWidths[column]);
             }
             sb.append('\n');
+            if (out != null && (row + 1) % PAGE_SIZE == 0) {
+                out.print(sb);
+                sb.setLength(0);
+            }
         }
 
         if (footer != null && !footer.isEmpty()) {
             sb.append("=".repeat(Math.max(50, title != null ? title.length() : 0))).append('\n');
             sb.append(footer);
         }
+    }
 
-        return sb.toString();
+    private static void appendCell(StringBuilder sb, String value, int width) {
+        int length = 0;
+        if (value != null) {
+            sb.append(value);
+            length = value.length();
+        }
+        for (int i = length; i < width; i++) {
+            sb.append(' ');
+        }
+        sb.append(" | ");
     }
 
-    private int[] calculateColumnWidths() {
+    private int[] estimateColumnWidths() {
         int columnCount = headers.size();
         int[] widths = new int[columnCount];
 
         for (int i = 0; i < columnCount; i++) {
-            widths[i] = headers.get(i).length();
+            widths[i] = Math.max(headers.get(i).length(), MIN_COLUMN_WIDTH);
         }
 
-        for (List<String> row : rows) {
-            for (int i = 0; i < Math.min(columnCount, row.size()); i++) {
-                widths[i] = Math.max(widths[i], row.get(i).length());
+        int sampleSize = Math.min(rowCount, WIDTH_SAMPLE_SIZE);
+        for (int row = 0; row < sampleSize; row++) {
+            for (int i = 0; i < columnCount; i++) {
+                String value = cells.get(row, i);
+                if (value != null) {
+                    widths[i] = Math.max(widths[i], value.length());
+                }
             }
         }
 
-        for (int i = 0; i < columnCount; i++) {
-            widths[i] = Math.max(widths[i], 10);
-        }
-
         return widths;
     }
 
@@ -101,6 +162,8 @@ public class TableResult implements CommandResult {
         private String title;
         private List<String> headers = new ArrayList<>();
         private List<List<String>> rows = new ArrayList<>();
+        private int rowCount;
+        private CellSource cells;
         private String footer;
 
         public Builder withTitle(String title) {
@@ -118,6 +181,16 @@ public class TableResult implements CommandResult {
             return this;
         }
 
+        /**
+         * Задает строки таблицы источником значений вместо добавления строк
+         * по одной; значения не копируются и читаются при выводе
+         */
+        public Builder withRows(int rowCount, CellSource cells) {
+            this.rowCount = rowCount;
+            this.cells = cells;
+            return this;
+        }
+
         public Builder withFooter(String footer) {
             this.footer = footer;
             return this;
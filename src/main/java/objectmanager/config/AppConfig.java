@@ -20,6 +20,7 @@ import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
 import objectmanager.exception.ExceptionHandler;
+import objectmanager.persistence.FsyncPolicy;
 import objectmanager.repository.TableRepository;
 import objectmanager.service.AsyncService;
 
@@ -35,6 +36,33 @@ public class AppConfig {
     @Value("${app.threads.max-pool-size:10}")
     private int maxPoolSize;
 
+    @Value("${app.tables.memory-budget-mb:0}")
+    private long memoryBudgetMb;
+
+    @Value("${app.query.join-memory-mb:256}")
+    private long joinMemoryMb;
+
+    @Value("${app.query.cache-entries:256}")
+    private int queryCacheEntries;
+
+    @Value("${app.query.cache-mb:64}")
+    private long queryCacheMb;
+
+    @Value("${app.storage.pretty-print:true}")
+    private boolean prettyPrintData;
+
+    @Value("${app.wal.fsync:periodic}")
+    private String walFsyncPolicy;
+
+    @Value("${app.wal.fsync-interval-ms:1000}")
+    private long walFsyncIntervalMillis;
+
+    @Value("${app.checkpoint.interval-ms:60000}")
+    private long checkpointIntervalMillis;
+
+    @Value("${app.compaction.tombstone-ratio:0.3}")
+    private double compactionThreshold;
+
     @Bean
     public Path workingDirectory() {
         try {
@@ -84,8 +112,15 @@ public class AppConfig {
     @Bean
     public TableRepository tableRepository(Path workingDirectory, AsyncService asyncService, ExceptionHandler exceptionHandler) {
         TableRepository tableRepository = new TableRepository(workingDirectory, asyncService, exceptionHandler);
+        tableRepository.setMemoryBudget(memoryBudgetMb * 1024 * 1024);
+        tableRepository.setJoinMemoryLimit(joinMemoryMb * 1024 * 1024);
+        tableRepository.configureQueryCache(queryCacheEntries, queryCacheMb * 1024 * 1024);
+        tableRepository.setPrettyPrintData(prettyPrintData);
+        tableRepository.configureWriteAheadLog(FsyncPolicy.fromName(walFsyncPolicy), walFsyncIntervalMillis);
+        tableRepository.setCheckpointInterval(checkpointIntervalMillis);
+        tableRepository.setCompactionThreshold(compactionThreshold);
         tableRepository.initialize();
-        tableRepository.loadAllTables();
+        tableRepository.loadAllSchemas();
         return tableRepository;
     }
 
@@ -0,0 +1,53 @@
+package objectmanager.model;
+
+/**
+ * Оператор сравнения значения поля с константой в условии выборки
+ */
+public enum ComparisonOperator {
+
+    EQ("="),
+    NE("!="),
+    LT("<"),
+    LE("<="),
+    GT(">"),
+    GE(">=");
+
+    private final String symbol;
+
+    ComparisonOperator(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * @param comparison результат сравнения значения поля с константой
+     */
+    public boolean test(int comparison) {
+        return switch (this) {
+            case EQ -> comparison == 0;
+            case NE -> comparison != 0;
+            case LT -> comparison < 0;
+            case LE -> comparison <= 0;
+            case GT -> comparison > 0;
+            case GE -> comparison >= 0;
+        };
+    }
+
+    /**
+     * @return оператор с указанным обозначением или null, если такого нет
+     */
+    public static ComparisonOperator fromSymbol(String symbol) {
+        if (symbol.equals("<>")) {
+            return NE;
+        }
+        for (ComparisonOperator operator : values()) {
+            if (operator.symbol.equals(symbol)) {
+                return operator;
+            }
+        }
+        return null;
+    }
+}
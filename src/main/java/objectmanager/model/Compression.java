@@ -0,0 +1,32 @@
+package objectmanager.model;
+
+/**
+ * Сжатие файла данных таблицы
+ */
+public enum Compression {
+
+    NONE("none"),
+    /**
+     * Файл разбит на независимо сжатые блоки Deflate
+     */
+    DEFLATE("deflate");
+
+    private final String name;
+
+    Compression(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public static Compression fromName(String name) {
+        for (Compression compression : values()) {
+            if (compression.name.equalsIgnoreCase(name)) {
+                return compression;
+            }
+        }
+        throw new IllegalArgumentException("Неизвестный вид сжатия: " + name);
+    }
+}
@@ -0,0 +1,41 @@
+package objectmanager.model;
+
+/**
+ * Формат файла данных таблицы
+ */
+public enum DataFormat {
+
+    /**
+     * Массив объектов JSON
+     */
+    JSON("json", ".json"),
+    /**
+     * Версионированный двоичный формат с типизированными значениями
+     */
+    BINARY("binary", ".bin");
+
+    private final String name;
+    private final String extension;
+
+    DataFormat(String name, String extension) {
+        this.name = name;
+        this.extension = extension;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public static DataFormat fromName(String name) {
+        for (DataFormat format : values()) {
+            if (format.name.equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Неизвестный формат данных: " + name);
+    }
+}
@@ -5,9 +5,18 @@ import java.util.Map;
 
 public class DataObject {
 
-    private final Map<String, String> values = new HashMap<>();
+    private final Map<String, String> values;
 
     public DataObject() {
+        this.values = new HashMap<>();
+    }
+
+    /**
+     * Конструктор для представлений строк, которые не хранят значения сами, а
+     * читают их из хранилища таблицы
+     */
+    protected DataObject(Map<String, String> values) {
+        this.values = values;
     }
 
     public String getValue(String fieldName) {
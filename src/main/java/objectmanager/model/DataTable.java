@@ -1,36 +1,587 @@
 package objectmanager.model;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntPredicate;
 
+import objectmanager.model.index.IndexType;
+import objectmanager.model.index.OrderedIndex;
+import objectmanager.model.index.RowIdList;
+import objectmanager.model.index.TableIndex;
+import objectmanager.model.storage.Column;
+import objectmanager.model.storage.ColumnarStorage;
+import objectmanager.model.storage.RowStorage;
+import objectmanager.model.storage.TableStorage;
+
+/**
+ * Таблица данных. Добавление строк и построение индексов выполняются под
+ * блокировкой таблицы, а чтение идет через снимки (см. {@link #snapshot()}) и
+ * не блокирует писателя: новая строка становится видна читателям только после
+ * записи во все колонки и индексы.
+ * <p>
+ * Строки не удаляются из хранилища: удаление помечает строку отметкой с
+ * номером эпохи удаления, а изменение удаляет строку и добавляет ее новую
+ * версию в конец. Снимок видит удаления, сделанные до его создания, поэтому
+ * номера строк и уже созданные снимки не меняются. Место удаленных строк
+ * освобождает уплотнение (см. {@link #compactedCopy()}), которое меняет
+ * нумерацию строк. Удаление, изменение и уплотнение выполняются под
+ * счетчиком записи (seqlock): нечетное значение означает, что изменение не
+ * завершено, и снимок в это время берется под блокировкой таблицы
+ */
 public class DataTable {
 
+    private static final int INDEX_ENTRY_SIZE = 24;
+
     private final TableSchema schema;
-    private final List<DataObject> dataObjects = new ArrayList<>();
+    private volatile TableStorage storage;
+    private volatile Map<String, TableIndex> indexes = new ConcurrentHashMap<>();
+    private volatile int rowCount;
+
+    /**
+     * Эпоха удаления каждой строки; 0 - строка не удалена. Создается при
+     * первом удалении, строки за пределами массива не удалены
+     */
+    private volatile int[] deletedAt;
+    private volatile int deleteEpoch;
+    private volatile int deletedCount;
+    private volatile int writeSequence;
+    private volatile int layoutVersion;
 
     public DataTable(TableSchema schema) {
+        this(schema, createStorage(schema));
+    }
+
+    /**
+     * Создает таблицу поверх уже заполненного хранилища; индексы схемы
+     * строятся по имеющимся строкам
+     */
+    public DataTable(TableSchema schema, TableStorage storage) {
         this.schema = schema;
+        this.storage = storage;
+        this.rowCount = storage.size();
+        schema.getIndexes().forEach((fieldName, indexType)
+                -> indexes.put(fieldName, buildIndex(fieldName, indexType)));
+    }
+
+    private static TableStorage createStorage(TableSchema schema) {
+        return switch (schema.getStorageType()) {
+            case COLUMNAR -> new ColumnarStorage(schema);
+            case ROW -> new RowStorage(schema);
+            case MAPPED -> throw new IllegalArgumentException(
+                    "Хранилище mapped создается только из двоичного файла данных");
+        };
+    }
+
+    /**
+     * @return номер добавленной строки
+     */
+    public synchronized int addDataObject(DataObject dataObject) {
+        int row = rowCount;
+        storage.append(dataObject);
+        publishRow(row);
+        return row;
+    }
+
+    /**
+     * Добавляет строку из разобранных значений полей в порядке схемы
+     *
+     * @return номер добавленной строки
+     */
+    public synchronized int addRow(Object[] keys) {
+        int row = rowCount;
+        storage.appendKeys(keys);
+        publishRow(row);
+        return row;
+    }
+
+    /**
+     * Добавляет пакет строк из разобранных значений полей в порядке схемы.
+     * Строки пакета становятся видны читателям одновременно, после записи
+     * всего пакета. Если запись прервалась ошибкой, уже записанные строки
+     * пакета публикуются удаленными, поэтому ни одна строка пакета не
+     * становится видна, а нумерация строк хранилища и таблицы совпадает
+     *
+     * @param chunks строки пакета частями
+     * @return номер первой добавленной строки
+     */
+    public synchronized int addRows(List<Object[][]> chunks) {
+        int firstRow = rowCount;
+        try {
+            for (Object[][] chunk : chunks) {
+                for (Object[] keys : chunk) {
+                    storage.appendKeys(keys);
+                    indexRow(storage.size() - 1);
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            discardRows(firstRow);
+            throw e;
+        }
+        rowCount = storage.size();
+        return firstRow;
+    }
+
+    private void discardRows(int firstRow) {
+        int[] rows = new int[storage.size() - firstRow];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = firstRow + i;
+        }
+        beginWrite();
+        try {
+            rowCount = storage.size();
+            markDeleted(rows);
+        } finally {
+            endWrite();
+        }
+    }
+
+    /**
+     * Помечает строки удаленными одной эпохой, поэтому снимок видит либо все
+     * удаления пакета, либо ни одного
+     *
+     * @return номера строк, которые действительно удалены; уже удаленные и
+     * несуществующие строки пропускаются
+     */
+    public synchronized int[] deleteRows(int[] rows) {
+        beginWrite();
+        try {
+            return markDeleted(rows);
+        } finally {
+            endWrite();
+        }
+    }
+
+    /**
+     * @return строки, которые удалил бы {@link #deleteRows(int[])}: без
+     * повторов, уже удаленных и несуществующих строк. Позволяет записать
+     * удаление в журнал до изменения таблицы
+     */
+    public synchronized int[] liveRows(int[] rows) {
+        int[] deleted = deletedAt;
+        int[] live = new int[rows.length];
+        int count = 0;
+        BitSet seen = null;
+        int previous = -1;
+        for (int row : rows) {
+            if (row < 0 || row >= rowCount || deleted != null && row < deleted.length && deleted[row] != 0) {
+                continue;
+            }
+            if (row <= previous) {
+                // Номера строк не возрастают, поэтому возможны повторы
+                if (seen == null) {
+                    seen = new BitSet(rowCount);
+                    for (int i = 0; i < count; i++) {
+                        seen.set(live[i]);
+                    }
+                }
+                if (seen.get(row)) {
+                    continue;
+                }
+            }
+            if (seen != null) {
+                seen.set(row);
+            }
+            live[count++] = row;
+            previous = Math.max(previous, row);
+        }
+        return count == live.length ? live : Arrays.copyOf(live, count);
+    }
+
+    /**
+     * Готовит изменение строк, не меняя таблицу: каждая строка будет удалена,
+     * а ее новая версия с измененными значениями полей добавлена в конец
+     * таблицы. Позволяет записать изменение в журнал до применения
+     * методом {@link #applyUpdate(UpdatedRows)}
+     *
+     * @param changes новые значения полей по порядковым номерам полей в схеме,
+     * разобранные по типам полей
+     * @return удаляемые старые версии и добавляемые новые версии строк
+     */
+    public synchronized UpdatedRows prepareUpdate(int[] rows, Map<Integer, Object> changes) {
+        int[] updated = liveRows(rows);
+        int fieldCount = schema.getFieldNames().size();
+        Object[][] newRows = new Object[updated.length][];
+        for (int i = 0; i < updated.length; i++) {
+            Object[] keys = new Object[fieldCount];
+            for (int field = 0; field < fieldCount; field++) {
+                keys[field] = changes.containsKey(field)
+                        ? changes.get(field) : storage.getColumn(field).getKey(updated[i]);
+            }
+            newRows[i] = keys;
+        }
+        return new UpdatedRows(updated, rowCount, newRows);
+    }
+
+    /**
+     * Применяет подготовленное изменение строк. Снимок видит либо старые,
+     * либо новые версии всех строк пакета
+     *
+     * @throws IllegalStateException если таблица изменилась после подготовки
+     */
+    public synchronized void applyUpdate(UpdatedRows updated) {
+        if (updated.firstRow() != rowCount || liveRows(updated.oldRows()).length != updated.oldRows().length) {
+            throw new IllegalStateException("Таблица " + schema.getTableName() + " изменилась после подготовки изменения");
+        }
+        beginWrite();
+        try {
+            markDeleted(updated.oldRows());
+            for (Object[] keys : updated.newRows()) {
+                storage.appendKeys(keys);
+                publishRow(rowCount);
+            }
+        } finally {
+            endWrite();
+        }
+    }
+
+    private int[] markDeleted(int[] rows) {
+        int[] marked = liveRows(rows);
+        if (marked.length == 0) {
+            // Пустое удаление не создает отметок и не меняет эпоху
+            return marked;
+        }
+
+        int[] deleted = deletedAt;
+        if (deleted == null) {
+            deleted = new int[rowCount];
+        } else if (deleted.length < rowCount) {
+            deleted = Arrays.copyOf(deleted, Math.max(rowCount, deleted.length * 2));
+        }
+        int epoch = deleteEpoch + 1;
+        for (int row : marked) {
+            deleted[row] = epoch;
+        }
+        deletedAt = deleted;
+        deletedCount += marked.length;
+        deleteEpoch = epoch;
+        return marked;
+    }
+
+    private void beginWrite() {
+        writeSequence++;
+    }
+
+    private void endWrite() {
+        writeSequence++;
+    }
+
+    /**
+     * Строит уплотненную копию таблицы только из неудаленных строк, с
+     * индексами схемы. Копия устанавливается вместо текущего содержимого
+     * методом {@link #replaceWith(DataTable)}
+     */
+    public synchronized DataTable compactedCopy() {
+        TableSnapshot snapshot = snapshot();
+        TableStorage compacted = createStorage(schema);
+        int fieldCount = schema.getFieldNames().size();
+        Column[] columns = new Column[fieldCount];
+        for (int field = 0; field < fieldCount; field++) {
+            columns[field] = storage.getColumn(field);
+        }
+        Object[] keys = new Object[fieldCount];
+        for (int row = 0; row < snapshot.size(); row++) {
+            if (!snapshot.isVisible(row)) {
+                continue;
+            }
+            for (int field = 0; field < fieldCount; field++) {
+                keys[field] = columns[field].getKey(row);
+            }
+            compacted.appendKeys(keys);
+        }
+        return new DataTable(schema, compacted);
+    }
+
+    /**
+     * Заменяет содержимое таблицы уплотненной копией. Снимки, созданные до
+     * замены, продолжают читать прежнее хранилище; индексы прежней нумерации
+     * для них больше не используются (см. {@link TableSnapshot#getLayoutVersion()})
+     */
+    public synchronized void replaceWith(DataTable compacted) {
+        schema.getIndexes().forEach((fieldName, indexType)
+                -> compacted.indexes.computeIfAbsent(fieldName, name -> compacted.buildIndex(name, indexType)));
+        beginWrite();
+        try {
+            layoutVersion++;
+            storage = compacted.storage;
+            indexes = compacted.indexes;
+            deletedAt = null;
+            deletedCount = 0;
+            deleteEpoch = 0;
+            rowCount = compacted.rowCount;
+        } finally {
+            endWrite();
+        }
+    }
+
+    /**
+     * Добавляет записанную в хранилище строку в индексы и только после этого
+     * делает ее видимой читателям
+     */
+    private void publishRow(int row) {
+        indexRow(row);
+        rowCount = row + 1;
+    }
+
+    private void indexRow(int row) {
+        for (TableIndex index : indexes.values()) {
+            index.add(storage.getColumn(schema.getFieldIndex(index.getFieldName())).getKey(row), row);
+        }
+    }
+
+    /**
+     * Строит индекс по полю на основе уже имеющихся строк. Дальше индекс
+     * поддерживается при каждом добавлении строки
+     *
+     * @return false, если индекс по полю уже существует
+     */
+    public synchronized boolean createIndex(String fieldName, IndexType indexType) {
+        int fieldIndex = schema.getFieldIndex(fieldName);
+        if (fieldIndex < 0) {
+            throw new IllegalArgumentException("Поле не найдено: " + fieldName);
+        }
+        if (indexes.containsKey(fieldName)) {
+            return false;
+        }
+
+        indexes.put(fieldName, buildIndex(fieldName, indexType));
+        schema.addIndex(fieldName, indexType);
+        return true;
+    }
+
+    private TableIndex buildIndex(String fieldName, IndexType indexType) {
+        Column column = storage.getColumn(schema.getFieldIndex(fieldName));
+        TableIndex index = TableIndex.create(fieldName, indexType);
+        for (int row = 0; row < rowCount; row++) {
+            index.add(column.getKey(row), row);
+        }
+        return index;
+    }
+
+    public TableIndex getIndex(String fieldName) {
+        return indexes.get(fieldName);
     }
 
-    public void addDataObject(DataObject dataObject) {
-        dataObjects.add(dataObject);
+    public Collection<TableIndex> getIndexes() {
+        return Collections.unmodifiableCollection(indexes.values());
     }
 
     public TableSchema getSchema() {
         return schema;
     }
 
+    /**
+     * @return согласованный снимок строк, опубликованных к этому моменту, без
+     * строк, удаленных к этому моменту
+     */
+    public TableSnapshot snapshot() {
+        int sequence = writeSequence;
+        if ((sequence & 1) == 0) {
+            TableSnapshot snapshot = readSnapshot();
+            if (sequence == writeSequence) {
+                return snapshot;
+            }
+        }
+        synchronized (this) {
+            return readSnapshot();
+        }
+    }
+
+    private TableSnapshot readSnapshot() {
+        // Эпоха читается раньше массива отметок: массив, прочитанный позже,
+        // содержит все удаления этой эпохи
+        int epoch = deleteEpoch;
+        int[] deleted = deletedAt;
+        return new TableSnapshot(schema, storage, rowCount, deleted, epoch, deletedCount, layoutVersion);
+    }
+
     public List<DataObject> getDataObjects() {
-        return Collections.unmodifiableList(dataObjects);
+        return snapshot().getRows();
+    }
+
+    /**
+     * @return колонка поля или null, если поле отсутствует в схеме
+     */
+    public Column getColumn(String fieldName) {
+        int fieldIndex = schema.getFieldIndex(fieldName);
+        return fieldIndex < 0 ? null : storage.getColumn(fieldIndex);
+    }
+
+    /**
+     * Выбирает строки, номера которых удовлетворяют условию. Условие обычно
+     * строится колонкой (см. {@link Column#equalTo(Object)}) и проверяется
+     * параллельным проходом по снимку таблицы
+     */
+    public List<DataObject> filter(IntPredicate rowCondition) {
+        return snapshot().filter(rowCondition);
+    }
+
+    /**
+     * Выбирает строки, в которых значение поля равно key. При наличии индекса
+     * по полю строки берутся из него, иначе выполняется просмотр колонки
+     */
+    public List<DataObject> findEqual(String fieldName, Object key) {
+        TableSnapshot snapshot = snapshot();
+        return snapshot.getRows(findEqualRowIds(snapshot, fieldName, key));
+    }
+
+    /**
+     * @return номера строк снимка, в которых значение поля равно key, в
+     * порядке добавления
+     */
+    public int[] findEqualRowIds(TableSnapshot snapshot, String fieldName, Object key) {
+        TableIndex index = indexFor(snapshot, fieldName);
+        if (index == null) {
+            return snapshot.filterRowIds(snapshot.getColumn(fieldName).equalTo(key));
+        }
+
+        RowIdList rows = index.find(key);
+        if (rows == null) {
+            return new int[0];
+        }
+        int[] rowIds = new int[rows.countBelow(snapshot.size())];
+        int count = 0;
+        for (int i = 0; i < rowIds.length; i++) {
+            if (snapshot.isVisible(rows.get(i))) {
+                rowIds[count++] = rows.get(i);
+            }
+        }
+        return count == rowIds.length ? rowIds : Arrays.copyOf(rowIds, count);
+    }
+
+    /**
+     * @return индекс по полю, если он построен для нумерации строк снимка,
+     * иначе null
+     */
+    private TableIndex indexFor(TableSnapshot snapshot, String fieldName) {
+        TableIndex index = indexes.get(fieldName);
+        return layoutVersion == snapshot.getLayoutVersion() ? index : null;
     }
 
+    /**
+     * Выбирает строки, значение поля в которых находится в отношении operator
+     * с key. Использует индекс по полю, если он подходит для оператора
+     */
+    public List<DataObject> find(String fieldName, ComparisonOperator operator, Object key) {
+        TableSnapshot snapshot = snapshot();
+        return snapshot.getRows(findRowIds(snapshot, fieldName, operator, key));
+    }
+
+    /**
+     * @return номера строк снимка, значение поля в которых находится в
+     * отношении operator с key, в порядке добавления
+     */
+    public int[] findRowIds(TableSnapshot snapshot, String fieldName, ComparisonOperator operator, Object key) {
+        return switch (operator) {
+            case EQ -> findEqualRowIds(snapshot, fieldName, key);
+            case NE -> snapshot.filterRowIds(snapshot.getColumn(fieldName).matches(operator, key));
+            case LT -> findRangeRowIds(snapshot, fieldName, null, false, key, false);
+            case LE -> findRangeRowIds(snapshot, fieldName, null, false, key, true);
+            case GT -> findRangeRowIds(snapshot, fieldName, key, false, null, false);
+            case GE -> findRangeRowIds(snapshot, fieldName, key, true, null, false);
+        };
+    }
+
+    /**
+     * Выбирает строки, значение поля в которых лежит в диапазоне. Пустая
+     * граница (null) означает отсутствие ограничения с этой стороны. Строки
+     * возвращаются в порядке добавления в таблицу
+     */
+    public List<DataObject> findRange(String fieldName, Object from, boolean fromInclusive,
+            Object to, boolean toInclusive) {
+        TableSnapshot snapshot = snapshot();
+        return snapshot.getRows(findRangeRowIds(snapshot, fieldName, from, fromInclusive, to, toInclusive));
+    }
+
+    /**
+     * @return номера строк снимка, значение поля в которых лежит в диапазоне,
+     * в порядке добавления. При наличии упорядоченного индекса по полю
+     * просматриваются только ключи из диапазона, иначе выполняется просмотр
+     * колонки
+     */
+    public int[] findRangeRowIds(TableSnapshot snapshot, String fieldName, Object from, boolean fromInclusive,
+            Object to, boolean toInclusive) {
+        if (from != null && to != null && compareKeys(from, to) > 0) {
+            return new int[0];
+        }
+
+        if (!(indexFor(snapshot, fieldName) instanceof OrderedIndex index)) {
+            Column column = snapshot.getColumn(fieldName);
+            IntPredicate lower = from == null ? row -> !column.isNull(row)
+                    : column.matches(fromInclusive ? ComparisonOperator.GE : ComparisonOperator.GT, from);
+            IntPredicate upper = to == null ? row -> true
+                    : column.matches(toInclusive ? ComparisonOperator.LE : ComparisonOperator.LT, to);
+            return snapshot.filterRowIds(lower.and(upper));
+        }
+
+        int[] rowIds = new int[16];
+        int count = 0;
+        for (RowIdList rows : index.findRange(from, fromInclusive, to, toInclusive)) {
+            int visible = rows.countBelow(snapshot.size());
+            if (count + visible > rowIds.length) {
+                rowIds = Arrays.copyOf(rowIds, Math.max(rowIds.length * 2, count + visible));
+            }
+            for (int i = 0; i < visible; i++) {
+                if (snapshot.isVisible(rows.get(i))) {
+                    rowIds[count++] = rows.get(i);
+                }
+            }
+        }
+        Arrays.parallelSort(rowIds, 0, count);
+        return Arrays.copyOf(rowIds, count);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compareKeys(Object left, Object right) {
+        return ((Comparable<Object>) left).compareTo(right);
+    }
+
+    /**
+     * @return количество неудаленных строк
+     */
     public int getObjectCount() {
-        return dataObjects.size();
+        return rowCount - deletedCount;
     }
 
+    /**
+     * @return количество строк в хранилище вместе с удаленными; номер
+     * следующей добавленной строки
+     */
     public int getRowCount() {
-        return getObjectCount();
+        return rowCount;
+    }
+
+    /**
+     * @return true, если после создания снимка строки таблицы удалялись,
+     * изменялись или перенумеровывались уплотнением; вставки не учитываются
+     */
+    public boolean isModifiedSince(TableSnapshot snapshot) {
+        return layoutVersion != snapshot.getLayoutVersion() || deleteEpoch != snapshot.getDeleteEpoch();
+    }
+
+    public int getDeletedCount() {
+        return deletedCount;
+    }
+
+    /**
+     * @return приблизительный объем памяти, занимаемый таблицей вместе с
+     * индексами, в байтах
+     */
+    public long estimateMemoryUsage() {
+        int[] deleted = deletedAt;
+        return storage.estimateSize() + (long) indexes.size() * rowCount * INDEX_ENTRY_SIZE
+                + (deleted == null ? 0 : 4L * deleted.length);
+    }
+
+    /**
+     * Результат изменения строк: номера удаленных старых версий и значения
+     * полей новых версий, добавленных подряд начиная с firstRow
+     */
+    public record UpdatedRows(int[] oldRows, int firstRow, Object[][] newRows) {
     }
 
 }
@@ -0,0 +1,147 @@
+package objectmanager.model;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+
+/**
+ * Тип поля таблицы, объявленный в схеме. Отвечает за разбор строкового
+ * представления значения и его обратное форматирование
+ */
+public enum FieldType {
+
+    STRING("string") {
+        @Override
+        protected Object parseValue(String value) {
+            return value;
+        }
+    },
+    INT("int", "integer") {
+        @Override
+        protected Object parseValue(String value) {
+            return Integer.parseInt(value.trim());
+        }
+    },
+    LONG("long", "bigint") {
+        @Override
+        protected Object parseValue(String value) {
+            return Long.parseLong(value.trim());
+        }
+    },
+    DOUBLE("double", "float", "number", "decimal") {
+        @Override
+        protected Object parseValue(String value) {
+            return Double.parseDouble(value.trim());
+        }
+    },
+    BOOLEAN("boolean", "bool") {
+        @Override
+        protected Object parseValue(String value) {
+            String trimmed = value.trim();
+            if (trimmed.equalsIgnoreCase("true")) {
+                return Boolean.TRUE;
+            }
+            if (trimmed.equalsIgnoreCase("false")) {
+                return Boolean.FALSE;
+            }
+            throw new IllegalArgumentException("ожидается true или false");
+        }
+    },
+    /**
+     * Момент времени, хранится как количество миллисекунд от начала эпохи
+     */
+    TIMESTAMP("timestamp", "datetime") {
+        @Override
+        protected Object parseValue(String value) {
+            return parseTimestamp(value.trim());
+        }
+
+        @Override
+        public String format(Object value) {
+            return value == null ? null : formatTimestamp((Long) value);
+        }
+    };
+
+    private final String name;
+    private final String[] aliases;
+
+    FieldType(String name, String... aliases) {
+        this.name = name;
+        this.aliases = aliases;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isNumeric() {
+        return this == INT || this == LONG || this == DOUBLE || this == TIMESTAMP;
+    }
+
+    protected abstract Object parseValue(String value);
+
+    /**
+     * Разбирает строковое значение в значение типа: {@link String},
+     * {@link Integer}, {@link Long}, {@link Double} или {@link Boolean}
+     *
+     * @throws IllegalArgumentException если значение не соответствует типу
+     */
+    public Object parse(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return parseValue(value);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Значение '" + value + "' не соответствует типу " + name, e);
+        }
+    }
+
+    public String format(Object value) {
+        return value == null ? null : value.toString();
+    }
+
+    /**
+     * Приводит строковое значение к каноническому виду для данного типа
+     */
+    public String normalize(String value) {
+        return format(parse(value));
+    }
+
+    public static long parseTimestamp(String value) {
+        if (!value.isEmpty() && value.chars().allMatch(Character::isDigit)) {
+            return Long.parseLong(value);
+        }
+        if (value.indexOf('T') < 0) {
+            return LocalDate.parse(value).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        }
+        try {
+            return OffsetDateTime.parse(value).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return LocalDateTime.parse(value).toInstant(ZoneOffset.UTC).toEpochMilli();
+        }
+    }
+
+    public static String formatTimestamp(long epochMillis) {
+        return Instant.ofEpochMilli(epochMillis).toString();
+    }
+
+    public static FieldType fromName(String name) {
+        String normalized = name.trim().toLowerCase(Locale.ROOT);
+        for (FieldType type : values()) {
+            if (type.name.equals(normalized)) {
+                return type;
+            }
+            for (String alias : type.aliases) {
+                if (alias.equals(normalized)) {
+                    return type;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Неизвестный тип поля: " + name);
+    }
+}
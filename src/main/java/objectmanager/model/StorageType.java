@@ -0,0 +1,40 @@
+package objectmanager.model;
+
+/**
+ * Способ размещения данных таблицы в памяти
+ */
+public enum StorageType {
+
+    /**
+     * Каждая строка хранится отдельным объектом {@link DataObject}
+     */
+    ROW("row"),
+    /**
+     * Каждое поле хранится отдельным вектором значений
+     */
+    COLUMNAR("columnar"),
+    /**
+     * Строки читаются напрямую из отображенного в память двоичного файла
+     * данных; таблица доступна только для чтения
+     */
+    MAPPED("mapped");
+
+    private final String name;
+
+    StorageType(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public static StorageType fromName(String name) {
+        for (StorageType type : values()) {
+            if (type.name.equalsIgnoreCase(name)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Неизвестный тип хранилища: " + name);
+    }
+}
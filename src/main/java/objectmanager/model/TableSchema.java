@@ -1,13 +1,23 @@
 package objectmanager.model;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+import objectmanager.model.index.IndexType;
+
 public class TableSchema {
 
     private String tableName;
     private String description = "";
     private Map<String, String> fields;
+    private List<String> fieldNames = List.of();
+    private FieldType[] dataTypes = new FieldType[0];
+    private StorageType storageType = StorageType.ROW;
+    private DataFormat dataFormat = DataFormat.JSON;
+    private Compression compression = Compression.NONE;
+    private final Map<String, IndexType> indexes = new LinkedHashMap<>();
 
     public TableSchema() {
     }
@@ -18,8 +28,8 @@ public class TableSchema {
 
     public TableSchema(String tableName, Map<String, String> fields, String description) {
         this.tableName = tableName;
-        this.fields = fields;
         this.description = description;
+        setFields(fields);
     }
 
     public String getTableName() {
@@ -44,13 +54,69 @@ public class TableSchema {
 
     public void setFields(Map<String, String> fields) {
         this.fields = fields;
+        this.fieldNames = fields != null ? List.copyOf(fields.keySet()) : List.of();
+        this.dataTypes = new FieldType[fieldNames.size()];
+        for (int i = 0; i < dataTypes.length; i++) {
+            dataTypes[i] = FieldType.fromName(fields.get(fieldNames.get(i)));
+        }
     }
 
     public List<String> getFieldNames() {
-        return List.copyOf(fields.keySet());
+        return fieldNames;
+    }
+
+    /**
+     * @return порядковый номер поля в схеме или -1, если поле не найдено
+     */
+    public int getFieldIndex(String fieldName) {
+        return fieldNames.indexOf(fieldName);
     }
 
     public String getFieldType(String fieldName) {
         return fields.getOrDefault(fieldName, "string");
     }
+
+    public FieldType getDataType(String fieldName) {
+        int fieldIndex = getFieldIndex(fieldName);
+        return fieldIndex < 0 ? FieldType.STRING : dataTypes[fieldIndex];
+    }
+
+    public FieldType getDataType(int fieldIndex) {
+        return dataTypes[fieldIndex];
+    }
+
+    public StorageType getStorageType() {
+        return storageType;
+    }
+
+    public void setStorageType(StorageType storageType) {
+        this.storageType = storageType != null ? storageType : StorageType.ROW;
+    }
+
+    public DataFormat getDataFormat() {
+        return dataFormat;
+    }
+
+    public void setDataFormat(DataFormat dataFormat) {
+        this.dataFormat = dataFormat != null ? dataFormat : DataFormat.JSON;
+    }
+
+    public Compression getCompression() {
+        return compression;
+    }
+
+    public void setCompression(Compression compression) {
+        this.compression = compression != null ? compression : Compression.NONE;
+    }
+
+    /**
+     * @return объявленные индексы: имя поля и вид индекса
+     */
+    public Map<String, IndexType> getIndexes() {
+        return Collections.unmodifiableMap(indexes);
+    }
+
+    public void addIndex(String fieldName, IndexType indexType) {
+        indexes.put(fieldName, indexType);
+    }
 }
@@ -0,0 +1,208 @@
+package objectmanager.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.IntPredicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import objectmanager.model.storage.Column;
+import objectmanager.model.storage.TableStorage;
+
+/**
+ * Неизменяемый снимок таблицы: первые size строк хранилища на момент создания
+ * снимка без строк, удаленных к этому моменту. Строки, добавленные и
+ * удаленные позже, на снимок не влияют, поэтому чтение снимка согласовано и
+ * не требует блокировок. Номера строк снимка - номера строк хранилища;
+ * удаленные строки пропускаются всеми методами отбора, а при собственном
+ * проходе по номерам видимость строки проверяет {@link #isVisible(int)}
+ */
+public class TableSnapshot {
+
+    private final TableSchema schema;
+    private final TableStorage storage;
+    private final int size;
+    private final int[] deletedAt;
+    private final int deleteEpoch;
+    private final int deletedCount;
+    private final int layoutVersion;
+
+    TableSnapshot(TableSchema schema, TableStorage storage, int size, int[] deletedAt, int deleteEpoch,
+            int deletedCount, int layoutVersion) {
+        this.schema = schema;
+        this.storage = storage;
+        this.size = size;
+        this.deletedAt = deletedAt;
+        this.deleteEpoch = deleteEpoch;
+        this.deletedCount = deletedCount;
+        this.layoutVersion = layoutVersion;
+    }
+
+    public TableSchema getSchema() {
+        return schema;
+    }
+
+    /**
+     * @return количество строк хранилища в снимке вместе с удаленными;
+     * номера строк снимка меньше этого значения
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return false, если строка удалена к моменту создания снимка
+     */
+    public boolean isVisible(int row) {
+        if (deletedAt == null || row >= deletedAt.length) {
+            return true;
+        }
+        int epoch = deletedAt[row];
+        return epoch == 0 || epoch > deleteEpoch;
+    }
+
+    /**
+     * @return true, если в снимке есть удаленные строки
+     */
+    public boolean hasDeletedRows() {
+        return deletedCount > 0;
+    }
+
+    /**
+     * @return количество строк, удаленных к моменту создания снимка
+     */
+    public int getDeletedCount() {
+        return deletedCount;
+    }
+
+    /**
+     * @return условие, дополнительно отбрасывающее удаленные строки; null,
+     * если condition равно null и удаленных строк нет
+     */
+    public IntPredicate visible(IntPredicate condition) {
+        if (!hasDeletedRows()) {
+            return condition;
+        }
+        return condition == null ? this::isVisible : row -> isVisible(row) && condition.test(row);
+    }
+
+    int getDeleteEpoch() {
+        return deleteEpoch;
+    }
+
+    /**
+     * @return версия нумерации строк, которая меняется при уплотнении
+     * таблицы; индексы таблицы применимы только к снимкам текущей версии
+     */
+    public int getLayoutVersion() {
+        return layoutVersion;
+    }
+
+    public DataObject getRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Строка " + row + " вне диапазона 0.." + (size - 1));
+        }
+        return storage.getRow(row);
+    }
+
+    /**
+     * @return колонка поля или null, если поле отсутствует в схеме
+     */
+    public Column getColumn(String fieldName) {
+        int fieldIndex = schema.getFieldIndex(fieldName);
+        return fieldIndex < 0 ? null : storage.getColumn(fieldIndex);
+    }
+
+    public List<DataObject> getRows() {
+        return hasDeletedRows() ? new SelectedRowList(filterRowIds(row -> true)) : new RowList();
+    }
+
+    /**
+     * Выбирает строки, номера которых удовлетворяют условию, параллельным
+     * проходом по номерам строк. Строки возвращаются в порядке добавления
+     */
+    public List<DataObject> filter(IntPredicate rowCondition) {
+        return IntStream.range(0, size).parallel()
+                .filter(visible(rowCondition))
+                .mapToObj(storage::getRow)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return номера строк, удовлетворяющих условию, в порядке добавления;
+     * строки проверяются параллельно
+     */
+    public int[] filterRowIds(IntPredicate rowCondition) {
+        return IntStream.range(0, size).parallel().filter(visible(rowCondition)).toArray();
+    }
+
+    /**
+     * Последовательно проверяет строки и останавливается, как только найдено
+     * limit подходящих строк после пропуска первых offset, поэтому выборка
+     * нескольких строк из большой таблицы не требует ее полного просмотра
+     *
+     * @return номера найденных строк в порядке добавления
+     */
+    public int[] scanRowIds(IntPredicate rowCondition, int offset, int limit) {
+        IntPredicate condition = visible(rowCondition);
+        int[] rowIds = new int[Math.min(limit, 1024)];
+        int count = 0;
+        int skipped = 0;
+        for (int row = 0; row < size && count < limit; row++) {
+            if (!condition.test(row)) {
+                continue;
+            }
+            if (skipped < offset) {
+                skipped++;
+                continue;
+            }
+            if (count == rowIds.length) {
+                rowIds = Arrays.copyOf(rowIds, (int) Math.min((long) limit, rowIds.length * 2L));
+            }
+            rowIds[count++] = row;
+        }
+        return count == rowIds.length ? rowIds : Arrays.copyOf(rowIds, count);
+    }
+
+    /**
+     * @return строки с указанными номерами; для колоночного хранилища строки
+     * читаются из колонок при обращении
+     */
+    public List<DataObject> getRows(int[] rowIds) {
+        return new SelectedRowList(rowIds);
+    }
+
+    private class RowList extends AbstractList<DataObject> implements RandomAccess {
+
+        @Override
+        public DataObject get(int index) {
+            return getRow(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    private class SelectedRowList extends AbstractList<DataObject> implements RandomAccess {
+
+        private final int[] rowIds;
+
+        SelectedRowList(int[] rowIds) {
+            this.rowIds = rowIds;
+        }
+
+        @Override
+        public DataObject get(int index) {
+            return getRow(rowIds[index]);
+        }
+
+        @Override
+        public int size() {
+            return rowIds.length;
+        }
+    }
+}
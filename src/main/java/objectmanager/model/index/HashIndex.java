@@ -0,0 +1,45 @@
+package objectmanager.model.index;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.Map;
+
+/**
+ * Хеш-индекс: поиск строк по равенству значения поля за O(1)
+ */
+public class HashIndex implements TableIndex {
+
+    private final String fieldName;
+    private final Map<Object, RowIdList> entries = new ConcurrentHashMap<>();
+
+    public HashIndex(String fieldName) {
+        this.fieldName = fieldName;
+    }
+
+    @Override
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    @Override
+    public IndexType getType() {
+        return IndexType.HASH;
+    }
+
+    @Override
+    public void add(Object key, int row) {
+        if (key == null) {
+            return;
+        }
+        entries.computeIfAbsent(key, k -> new RowIdList()).add(row);
+    }
+
+    @Override
+    public RowIdList find(Object key) {
+        return entries.get(key);
+    }
+
+    @Override
+    public int getKeyCount() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,35 @@
+package objectmanager.model.index;
+
+/**
+ * Вид вторичного индекса по полю таблицы
+ */
+public enum IndexType {
+
+    /**
+     * Хеш-индекс для поиска по равенству
+     */
+    HASH("hash"),
+    /**
+     * Упорядоченный индекс для поиска по равенству и по диапазону значений
+     */
+    ORDERED("ordered");
+
+    private final String name;
+
+    IndexType(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public static IndexType fromName(String name) {
+        for (IndexType type : values()) {
+            if (type.name.equalsIgnoreCase(name)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Неизвестный тип индекса: " + name);
+    }
+}
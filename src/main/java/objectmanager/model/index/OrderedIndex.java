@@ -0,0 +1,63 @@
+package objectmanager.model.index;
+
+import java.util.Collection;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Упорядоченный индекс на основе списка с пропусками. Помимо поиска по
+ * равенству позволяет выбирать строки с ключом из диапазона за O(log n + k)
+ */
+public class OrderedIndex implements TableIndex {
+
+    private final String fieldName;
+    private final ConcurrentSkipListMap<Object, RowIdList> entries = new ConcurrentSkipListMap<>();
+
+    public OrderedIndex(String fieldName) {
+        this.fieldName = fieldName;
+    }
+
+    @Override
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    @Override
+    public IndexType getType() {
+        return IndexType.ORDERED;
+    }
+
+    @Override
+    public void add(Object key, int row) {
+        if (key == null) {
+            return;
+        }
+        entries.computeIfAbsent(key, k -> new RowIdList()).add(row);
+    }
+
+    @Override
+    public RowIdList find(Object key) {
+        return entries.get(key);
+    }
+
+    /**
+     * @param from нижняя граница или null, если диапазон не ограничен снизу
+     * @param to верхняя граница или null, если диапазон не ограничен сверху
+     * @return списки строк для ключей из диапазона в порядке возрастания ключа
+     */
+    public Collection<RowIdList> findRange(Object from, boolean fromInclusive, Object to, boolean toInclusive) {
+        NavigableMap<Object, RowIdList> range = entries;
+        if (from != null) {
+            range = range.tailMap(from, fromInclusive);
+        }
+        if (to != null) {
+            range = range.headMap(to, toInclusive);
+        }
+        return range.values();
+    }
+
+    @Override
+    public int getKeyCount() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,43 @@
+package objectmanager.model.index;
+
+import java.util.Arrays;
+
+/**
+ * Список номеров строк с одинаковым значением ключа индекса. Номера
+ * добавляются в порядке возрастания одним писателем; читатели видят
+ * согласованный префикс списка без блокировок
+ */
+public class RowIdList {
+
+    private volatile int[] rows = new int[2];
+    private volatile int size;
+
+    public void add(int row) {
+        int[] current = rows;
+        if (size == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+            rows = current;
+        }
+        current[size] = row;
+        size = size + 1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int get(int index) {
+        return rows[index];
+    }
+
+    /**
+     * @return количество номеров строк, меньших limit. Так как номера
+     * возрастают, это длина префикса, видимого в снимке из limit строк
+     */
+    public int countBelow(int limit) {
+        int count = size;
+        int[] current = rows;
+        int position = Arrays.binarySearch(current, 0, count, limit);
+        return position >= 0 ? position : -position - 1;
+    }
+}
@@ -0,0 +1,32 @@
+package objectmanager.model.index;
+
+/**
+ * Вторичный индекс по одному полю таблицы. Ключами служат значения,
+ * полученные через {@link objectmanager.model.FieldType#parse(String)}
+ */
+public interface TableIndex {
+
+    String getFieldName();
+
+    IndexType getType();
+
+    void add(Object key, int row);
+
+    /**
+     * @return номера строк со значением key в порядке добавления или null,
+     * если таких строк нет
+     */
+    RowIdList find(Object key);
+
+    /**
+     * @return количество различных значений ключа
+     */
+    int getKeyCount();
+
+    static TableIndex create(String fieldName, IndexType type) {
+        return switch (type) {
+            case HASH -> new HashIndex(fieldName);
+            case ORDERED -> new OrderedIndex(fieldName);
+        };
+    }
+}
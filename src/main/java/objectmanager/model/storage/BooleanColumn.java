@@ -0,0 +1,68 @@
+package objectmanager.model.storage;
+
+import java.util.function.IntPredicate;
+
+import objectmanager.model.FieldType;
+
+/**
+ * Колонка логических значений, упакованных по одному биту на строку
+ */
+public class BooleanColumn extends PrimitiveColumn {
+
+    private volatile long[][] chunks = new long[0][];
+
+    @Override
+    public FieldType getType() {
+        return FieldType.BOOLEAN;
+    }
+
+    public boolean getBoolean(int row) {
+        return Chunks.getBit(chunks[Chunks.chunk(row)], Chunks.offset(row));
+    }
+
+    @Override
+    protected void addChunk() {
+        chunks = Chunks.append(chunks, new long[Chunks.BITMAP_WORDS]);
+    }
+
+    @Override
+    protected void set(int row, String value) {
+        Chunks.setBit(chunks[Chunks.chunk(row)], Chunks.offset(row), (Boolean) FieldType.BOOLEAN.parse(value));
+    }
+
+    @Override
+    protected void setKey(int row, Object key) {
+        Chunks.setBit(chunks[Chunks.chunk(row)], Chunks.offset(row), (Boolean) key);
+    }
+
+    @Override
+    protected String format(int row) {
+        return String.valueOf(getBoolean(row));
+    }
+
+    @Override
+    public Object getKey(int row) {
+        return isNull(row) ? null : Boolean.valueOf(getBoolean(row));
+    }
+
+    @Override
+    public int compare(int row, Object key) {
+        return isNull(row) ? -1 : Boolean.compare(getBoolean(row), (Boolean) key);
+    }
+
+    @Override
+    public int compareRows(int left, int right) {
+        boolean leftNull = isNull(left);
+        boolean rightNull = isNull(right);
+        if (leftNull || rightNull) {
+            return Boolean.compare(!leftNull, !rightNull);
+        }
+        return Boolean.compare(getBoolean(left), getBoolean(right));
+    }
+
+    @Override
+    public IntPredicate equalTo(Object key) {
+        boolean expected = (Boolean) key;
+        return row -> getBoolean(row) == expected && !isNull(row);
+    }
+}
@@ -0,0 +1,24 @@
+package objectmanager.model.storage;
+
+/**
+ * Массив ссылок, растущий блоками (см. {@link Chunks})
+ */
+final class ChunkedArray<E> {
+
+    private volatile Object[][] chunks = new Object[0][];
+
+    void set(int index, E value) {
+        int chunk = Chunks.chunk(index);
+        Object[][] directory = chunks;
+        if (chunk == directory.length) {
+            directory = Chunks.append(directory, new Object[Chunks.SIZE]);
+            chunks = directory;
+        }
+        directory[chunk][Chunks.offset(index)] = value;
+    }
+
+    @SuppressWarnings("unchecked")
+    E get(int index) {
+        return (E) chunks[Chunks.chunk(index)][Chunks.offset(index)];
+    }
+}
@@ -0,0 +1,54 @@
+package objectmanager.model.storage;
+
+import java.util.Arrays;
+
+/**
+ * Разбиение хранилища на блоки фиксированного размера. Записанные блоки
+ * никогда не копируются и не заменяются: при росте в каталог блоков
+ * добавляется новый блок, а сам каталог публикуется через volatile-поле.
+ * Благодаря этому читатели обращаются к строкам без блокировок, пока
+ * единственный писатель дописывает новые
+ */
+final class Chunks {
+
+    static final int SHIFT = 12;
+    static final int SIZE = 1 << SHIFT;
+    static final int MASK = SIZE - 1;
+
+    /**
+     * Количество 64-битных слов в битовой маске одного блока
+     */
+    static final int BITMAP_WORDS = SIZE >>> 6;
+
+    private Chunks() {
+    }
+
+    static int chunk(int row) {
+        return row >>> SHIFT;
+    }
+
+    static int offset(int row) {
+        return row & MASK;
+    }
+
+    /**
+     * @return новый каталог, в конец которого добавлен блок chunk
+     */
+    static <T> T[] append(T[] directory, T chunk) {
+        T[] grown = Arrays.copyOf(directory, directory.length + 1);
+        grown[directory.length] = chunk;
+        return grown;
+    }
+
+    static boolean getBit(long[] bitmap, int offset) {
+        return (bitmap[offset >>> 6] & (1L << offset)) != 0;
+    }
+
+    static void setBit(long[] bitmap, int offset, boolean value) {
+        if (value) {
+            bitmap[offset >>> 6] |= 1L << offset;
+        } else {
+            bitmap[offset >>> 6] &= ~(1L << offset);
+        }
+    }
+}
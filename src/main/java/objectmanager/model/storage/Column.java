@@ -0,0 +1,81 @@
+package objectmanager.model.storage;
+
+import java.util.function.IntPredicate;
+
+import objectmanager.model.ComparisonOperator;
+import objectmanager.model.FieldType;
+
+/**
+ * Последовательность значений одного поля таблицы, адресуемая номером строки.
+ * Количество доступных строк определяется снимком таблицы
+ */
+public interface Column {
+
+    FieldType getType();
+
+    String getString(int row);
+
+    default boolean isNull(int row) {
+        return getString(row) == null;
+    }
+
+    /**
+     * @return значение в строке в виде, возвращаемом
+     * {@link FieldType#parse(String)}, или null для пустого значения
+     */
+    Object getKey(int row);
+
+    /**
+     * @return значение числовой колонки в строке в виде long; для непустых
+     * значений
+     */
+    default long longValue(int row) {
+        return ((Number) getKey(row)).longValue();
+    }
+
+    /**
+     * @return значение числовой колонки в строке в виде double; для непустых
+     * значений
+     */
+    default double doubleValue(int row) {
+        return ((Number) getKey(row)).doubleValue();
+    }
+
+    /**
+     * Сравнивает значение в строке со значением, полученным через
+     * {@link FieldType#parse(String)} для типа колонки. Пустое значение
+     * считается меньше любого другого
+     */
+    int compare(int row, Object key);
+
+    /**
+     * Сравнивает значения в двух строках колонки; пустое значение считается
+     * меньше любого другого
+     */
+    default int compareRows(int left, int right) {
+        Object rightKey = getKey(right);
+        if (rightKey == null) {
+            return isNull(left) ? 0 : 1;
+        }
+        return compare(left, rightKey);
+    }
+
+    /**
+     * @return условие на номер строки, истинное для строк, значение в которых
+     * равно key
+     */
+    default IntPredicate equalTo(Object key) {
+        return row -> !isNull(row) && compare(row, key) == 0;
+    }
+
+    /**
+     * @return условие на номер строки, истинное для строк, значение в которых
+     * находится в отношении operator с key; пустые значения не подходят
+     */
+    default IntPredicate matches(ComparisonOperator operator, Object key) {
+        if (operator == ComparisonOperator.EQ) {
+            return equalTo(key);
+        }
+        return row -> !isNull(row) && operator.test(compare(row, key));
+    }
+}
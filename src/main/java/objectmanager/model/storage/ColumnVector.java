@@ -0,0 +1,58 @@
+package objectmanager.model.storage;
+
+import objectmanager.model.FieldType;
+
+/**
+ * Колонка колоночного хранилища, в которую значения дописываются в конец.
+ * Значения хранятся блоками (см. {@link Chunks}): дописывать может только один
+ * поток, читать уже опубликованные строки - любое количество потоков
+ */
+public abstract class ColumnVector implements Column {
+
+    /**
+     * Количество записанных значений; используется только писателем
+     */
+    protected int size;
+
+    /**
+     * Разбирает строковое значение согласно типу колонки и дописывает его
+     *
+     * @throws IllegalArgumentException если значение не соответствует типу
+     */
+    public abstract void append(String value);
+
+    /**
+     * Дописывает уже разобранное значение (см. {@link Column#getKey(int)})
+     */
+    public abstract void appendKey(Object key);
+
+    /**
+     * Отбрасывает значения, начиная со строки newSize
+     */
+    public abstract void truncate(int newSize);
+
+    /**
+     * @return приблизительный объем памяти, занимаемый значениями, в байтах.
+     * Для строк учитывается средний размер небольшой строки
+     */
+    public long estimateSize() {
+        int bytesPerValue = switch (getType()) {
+            case STRING -> 52;
+            case INT -> 4;
+            case LONG, DOUBLE, TIMESTAMP -> 8;
+            case BOOLEAN -> 1;
+        };
+        return (long) size * bytesPerValue;
+    }
+
+    public static ColumnVector create(FieldType type) {
+        return switch (type) {
+            case STRING -> new StringColumn();
+            case INT -> new IntColumn();
+            case LONG -> new LongColumn();
+            case DOUBLE -> new DoubleColumn();
+            case BOOLEAN -> new BooleanColumn();
+            case TIMESTAMP -> new TimestampColumn();
+        };
+    }
+}
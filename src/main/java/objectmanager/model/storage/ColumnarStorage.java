@@ -0,0 +1,119 @@
+package objectmanager.model.storage;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import objectmanager.model.DataObject;
+import objectmanager.model.TableSchema;
+
+/**
+ * Колоночное хранилище: по одному вектору значений на каждое поле схемы,
+ * числовые и логические поля хранятся в массивах примитивов. Строки
+ * отдаются в виде представлений поверх колонок, поэтому на строку не
+ * создается собственная хеш-таблица
+ */
+public class ColumnarStorage implements TableStorage {
+
+    private final List<String> fieldNames;
+    private final ColumnVector[] columns;
+    private int size;
+
+    public ColumnarStorage(TableSchema schema) {
+        this.fieldNames = schema.getFieldNames();
+        this.columns = new ColumnVector[fieldNames.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = ColumnVector.create(schema.getDataType(i));
+        }
+    }
+
+    @Override
+    public void append(DataObject dataObject) {
+        int appended = 0;
+        try {
+            for (; appended < columns.length; appended++) {
+                columns[appended].append(dataObject.getValue(fieldNames.get(appended)));
+            }
+        } catch (RuntimeException e) {
+            // Ошибка в одном поле не должна оставить колонки разной длины
+            for (int i = 0; i < appended; i++) {
+                columns[i].truncate(size);
+            }
+            throw e;
+        }
+        size++;
+    }
+
+    @Override
+    public void appendKeys(Object[] keys) {
+        int appended = 0;
+        try {
+            for (; appended < columns.length; appended++) {
+                columns[appended].appendKey(keys[appended]);
+            }
+        } catch (RuntimeException e) {
+            for (int i = 0; i < appended; i++) {
+                columns[i].truncate(size);
+            }
+            throw e;
+        }
+        size++;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public DataObject getRow(int row) {
+        return new RowView(row);
+    }
+
+    @Override
+    public Column getColumn(int fieldIndex) {
+        return columns[fieldIndex];
+    }
+
+    @Override
+    public long estimateSize() {
+        long bytes = 0;
+        for (ColumnVector column : columns) {
+            bytes += column.estimateSize();
+        }
+        return bytes;
+    }
+
+    /**
+     * Строка таблицы, читающая значения напрямую из колонок
+     */
+    private class RowView extends DataObject {
+
+        private final int row;
+
+        RowView(int row) {
+            super(null);
+            this.row = row;
+        }
+
+        @Override
+        public String getValue(String fieldName) {
+            int fieldIndex = fieldNames.indexOf(fieldName);
+            return fieldIndex < 0 ? null : columns[fieldIndex].getString(row);
+        }
+
+        @Override
+        public void setValue(String fieldName, String value) {
+            throw new UnsupportedOperationException("Строки колоночной таблицы доступны только для чтения");
+        }
+
+        @Override
+        public Map<String, String> getValues() {
+            Map<String, String> values = new LinkedHashMap<>();
+            for (int i = 0; i < columns.length; i++) {
+                values.put(fieldNames.get(i), columns[i].getString(row));
+            }
+            return values;
+        }
+    }
+}
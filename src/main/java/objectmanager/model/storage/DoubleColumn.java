@@ -0,0 +1,96 @@
+package objectmanager.model.storage;
+
+import java.util.function.IntPredicate;
+
+import objectmanager.model.ComparisonOperator;
+import objectmanager.model.FieldType;
+
+/**
+ * Колонка значений типа double
+ */
+public class DoubleColumn extends PrimitiveColumn {
+
+    private volatile double[][] chunks = new double[0][];
+
+    @Override
+    public FieldType getType() {
+        return FieldType.DOUBLE;
+    }
+
+    public double getDouble(int row) {
+        return chunks[Chunks.chunk(row)][Chunks.offset(row)];
+    }
+
+    private void setDouble(int row, double value) {
+        chunks[Chunks.chunk(row)][Chunks.offset(row)] = value;
+    }
+
+    @Override
+    protected void addChunk() {
+        chunks = Chunks.append(chunks, new double[Chunks.SIZE]);
+    }
+
+    @Override
+    protected void set(int row, String value) {
+        setDouble(row, Double.parseDouble(value));
+    }
+
+    @Override
+    protected void setKey(int row, Object key) {
+        setDouble(row, (Double) key);
+    }
+
+    @Override
+    protected String format(int row) {
+        return String.valueOf(getDouble(row));
+    }
+
+    @Override
+    public long longValue(int row) {
+        return (long) getDouble(row);
+    }
+
+    @Override
+    public double doubleValue(int row) {
+        return getDouble(row);
+    }
+
+    @Override
+    public Object getKey(int row) {
+        return isNull(row) ? null : Double.valueOf(getDouble(row));
+    }
+
+    @Override
+    public int compare(int row, Object key) {
+        return isNull(row) ? -1 : Double.compare(getDouble(row), (Double) key);
+    }
+
+    @Override
+    public int compareRows(int left, int right) {
+        boolean leftNull = isNull(left);
+        boolean rightNull = isNull(right);
+        if (leftNull || rightNull) {
+            return Boolean.compare(!leftNull, !rightNull);
+        }
+        return Double.compare(getDouble(left), getDouble(right));
+    }
+
+    @Override
+    public IntPredicate equalTo(Object key) {
+        double expected = (Double) key;
+        return row -> Double.compare(getDouble(row), expected) == 0 && !isNull(row);
+    }
+
+    @Override
+    public IntPredicate matches(ComparisonOperator operator, Object key) {
+        double bound = (Double) key;
+        return switch (operator) {
+            case EQ -> equalTo(key);
+            case NE -> row -> Double.compare(getDouble(row), bound) != 0 && !isNull(row);
+            case LT -> row -> Double.compare(getDouble(row), bound) < 0 && !isNull(row);
+            case LE -> row -> Double.compare(getDouble(row), bound) <= 0 && !isNull(row);
+            case GT -> row -> Double.compare(getDouble(row), bound) > 0 && !isNull(row);
+            case GE -> row -> Double.compare(getDouble(row), bound) >= 0 && !isNull(row);
+        };
+    }
+}
@@ -0,0 +1,96 @@
+package objectmanager.model.storage;
+
+import java.util.function.IntPredicate;
+
+import objectmanager.model.ComparisonOperator;
+import objectmanager.model.FieldType;
+
+/**
+ * Колонка значений типа int
+ */
+public class IntColumn extends PrimitiveColumn {
+
+    private volatile int[][] chunks = new int[0][];
+
+    @Override
+    public FieldType getType() {
+        return FieldType.INT;
+    }
+
+    public int getInt(int row) {
+        return chunks[Chunks.chunk(row)][Chunks.offset(row)];
+    }
+
+    private void setInt(int row, int value) {
+        chunks[Chunks.chunk(row)][Chunks.offset(row)] = value;
+    }
+
+    @Override
+    protected void addChunk() {
+        chunks = Chunks.append(chunks, new int[Chunks.SIZE]);
+    }
+
+    @Override
+    protected void set(int row, String value) {
+        setInt(row, Integer.parseInt(value));
+    }
+
+    @Override
+    protected void setKey(int row, Object key) {
+        setInt(row, (Integer) key);
+    }
+
+    @Override
+    protected String format(int row) {
+        return String.valueOf(getInt(row));
+    }
+
+    @Override
+    public long longValue(int row) {
+        return getInt(row);
+    }
+
+    @Override
+    public double doubleValue(int row) {
+        return getInt(row);
+    }
+
+    @Override
+    public Object getKey(int row) {
+        return isNull(row) ? null : Integer.valueOf(getInt(row));
+    }
+
+    @Override
+    public int compare(int row, Object key) {
+        return isNull(row) ? -1 : Integer.compare(getInt(row), (Integer) key);
+    }
+
+    @Override
+    public int compareRows(int left, int right) {
+        boolean leftNull = isNull(left);
+        boolean rightNull = isNull(right);
+        if (leftNull || rightNull) {
+            return Boolean.compare(!leftNull, !rightNull);
+        }
+        return Integer.compare(getInt(left), getInt(right));
+    }
+
+    @Override
+    public IntPredicate equalTo(Object key) {
+        int expected = (Integer) key;
+        return row -> getInt(row) == expected && !isNull(row);
+    }
+
+    @Override
+    public IntPredicate matches(ComparisonOperator operator, Object key) {
+        int bound = (Integer) key;
+        return switch (operator) {
+            case EQ -> equalTo(key);
+            case NE -> row -> getInt(row) != bound && !isNull(row);
+            case LT -> row -> getInt(row) < bound && !isNull(row);
+            case LE -> row -> getInt(row) <= bound && !isNull(row);
+            case GT -> row -> getInt(row) > bound && !isNull(row);
+            case GE -> row -> getInt(row) >= bound && !isNull(row);
+        };
+    }
+}
@@ -0,0 +1,96 @@
+package objectmanager.model.storage;
+
+import java.util.function.IntPredicate;
+
+import objectmanager.model.ComparisonOperator;
+import objectmanager.model.FieldType;
+
+/**
+ * Колонка значений типа long
+ */
+public class LongColumn extends PrimitiveColumn {
+
+    private volatile long[][] chunks = new long[0][];
+
+    @Override
+    public FieldType getType() {
+        return FieldType.LONG;
+    }
+
+    public long getLong(int row) {
+        return chunks[Chunks.chunk(row)][Chunks.offset(row)];
+    }
+
+    protected void setLong(int row, long value) {
+        chunks[Chunks.chunk(row)][Chunks.offset(row)] = value;
+    }
+
+    @Override
+    protected void addChunk() {
+        chunks = Chunks.append(chunks, new long[Chunks.SIZE]);
+    }
+
+    @Override
+    protected void set(int row, String value) {
+        setLong(row, Long.parseLong(value));
+    }
+
+    @Override
+    protected void setKey(int row, Object key) {
+        setLong(row, (Long) key);
+    }
+
+    @Override
+    protected String format(int row) {
+        return String.valueOf(getLong(row));
+    }
+
+    @Override
+    public long longValue(int row) {
+        return getLong(row);
+    }
+
+    @Override
+    public double doubleValue(int row) {
+        return getLong(row);
+    }
+
+    @Override
+    public Object getKey(int row) {
+        return isNull(row) ? null : Long.valueOf(getLong(row));
+    }
+
+    @Override
+    public int compare(int row, Object key) {
+        return isNull(row) ? -1 : Long.compare(getLong(row), (Long) key);
+    }
+
+    @Override
+    public int compareRows(int left, int right) {
+        boolean leftNull = isNull(left);
+        boolean rightNull = isNull(right);
+        if (leftNull || rightNull) {
+            return Boolean.compare(!leftNull, !rightNull);
+        }
+        return Long.compare(getLong(left), getLong(right));
+    }
+
+    @Override
+    public IntPredicate equalTo(Object key) {
+        long expected = (Long) key;
+        return row -> getLong(row) == expected && !isNull(row);
+    }
+
+    @Override
+    public IntPredicate matches(ComparisonOperator operator, Object key) {
+        long bound = (Long) key;
+        return switch (operator) {
+            case EQ -> equalTo(key);
+            case NE -> row -> getLong(row) != bound && !isNull(row);
+            case LT -> row -> getLong(row) < bound && !isNull(row);
+            case LE -> row -> getLong(row) <= bound && !isNull(row);
+            case GT -> row -> getLong(row) > bound && !isNull(row);
+            case GE -> row -> getLong(row) >= bound && !isNull(row);
+        };
+    }
+}
@@ -0,0 +1,84 @@
+package objectmanager.model.storage;
+
+import java.time.format.DateTimeParseException;
+
+/**
+ * Колонка значений примитивного типа. Значения хранятся в блоках-массивах
+ * примитивов без упаковки, отсутствующие значения отмечаются в битовой маске
+ * блока
+ */
+public abstract class PrimitiveColumn extends ColumnVector {
+
+    private volatile long[][] nulls = new long[0][];
+
+    @Override
+    public final void append(String value) {
+        int chunk = ensureChunk();
+        if (value == null) {
+            Chunks.setBit(nulls[chunk], Chunks.offset(size), true);
+        } else {
+            try {
+                set(size, value.trim());
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                throw new IllegalArgumentException("Значение '" + value + "' не соответствует типу "
+                        + getType().getName(), e);
+            }
+        }
+        size++;
+    }
+
+    @Override
+    public final void appendKey(Object key) {
+        int chunk = ensureChunk();
+        if (key == null) {
+            Chunks.setBit(nulls[chunk], Chunks.offset(size), true);
+        } else {
+            setKey(size, key);
+        }
+        size++;
+    }
+
+    private int ensureChunk() {
+        int chunk = Chunks.chunk(size);
+        if (chunk == nulls.length) {
+            addChunk();
+            nulls = Chunks.append(nulls, new long[Chunks.BITMAP_WORDS]);
+        }
+        return chunk;
+    }
+
+    @Override
+    public void truncate(int newSize) {
+        for (int row = newSize; row < size; row++) {
+            Chunks.setBit(nulls[Chunks.chunk(row)], Chunks.offset(row), false);
+        }
+        size = newSize;
+    }
+
+    @Override
+    public boolean isNull(int row) {
+        return Chunks.getBit(nulls[Chunks.chunk(row)], Chunks.offset(row));
+    }
+
+    @Override
+    public String getString(int row) {
+        return isNull(row) ? null : format(row);
+    }
+
+    /**
+     * Добавляет блок для значений следующих {@link Chunks#SIZE} строк
+     */
+    protected abstract void addChunk();
+
+    /**
+     * Разбирает значение и записывает его в указанную строку
+     */
+    protected abstract void set(int row, String value);
+
+    /**
+     * Записывает разобранное значение в указанную строку
+     */
+    protected abstract void setKey(int row, Object key);
+
+    protected abstract String format(int row);
+}
@@ -0,0 +1,109 @@
+package objectmanager.model.storage;
+
+import java.util.List;
+import java.util.function.IntPredicate;
+
+import objectmanager.model.DataObject;
+import objectmanager.model.FieldType;
+import objectmanager.model.TableSchema;
+
+/**
+ * Построчное хранилище: каждая строка является отдельным {@link DataObject}.
+ * Значения хранятся строками в каноническом для типа поля виде
+ */
+public class RowStorage implements TableStorage {
+
+    private static final int ROW_OVERHEAD = 80;
+    private static final int FIELD_OVERHEAD = 88;
+
+    private final TableSchema schema;
+    private final ChunkedArray<DataObject> rows = new ChunkedArray<>();
+    private int size;
+
+    public RowStorage(TableSchema schema) {
+        this.schema = schema;
+    }
+
+    /**
+     * Значения копируются в новую строку, поэтому объект вызывающего кода не
+     * изменяется
+     */
+    @Override
+    public void append(DataObject dataObject) {
+        List<String> fieldNames = schema.getFieldNames();
+        DataObject row = new DataObject();
+        for (int i = 0; i < fieldNames.size(); i++) {
+            String fieldName = fieldNames.get(i);
+            FieldType type = schema.getDataType(i);
+            String value = dataObject.getValue(fieldName);
+            row.setValue(fieldName, type == FieldType.STRING ? value : type.normalize(value));
+        }
+        rows.set(size++, row);
+    }
+
+    @Override
+    public void appendKeys(Object[] keys) {
+        List<String> fieldNames = schema.getFieldNames();
+        DataObject dataObject = new DataObject();
+        for (int i = 0; i < fieldNames.size(); i++) {
+            dataObject.setValue(fieldNames.get(i), schema.getDataType(i).format(keys[i]));
+        }
+        rows.set(size++, dataObject);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public DataObject getRow(int row) {
+        return rows.get(row);
+    }
+
+    /**
+     * Каждая строка - отдельный объект с хеш-таблицей значений: заголовки
+     * объектов и узлы таблицы обходятся дороже самих значений
+     */
+    @Override
+    public long estimateSize() {
+        return (long) size * (ROW_OVERHEAD + schema.getFieldNames().size() * FIELD_OVERHEAD);
+    }
+
+    @Override
+    public Column getColumn(int fieldIndex) {
+        String fieldName = schema.getFieldNames().get(fieldIndex);
+        FieldType type = schema.getDataType(fieldIndex);
+        return new Column() {
+            @Override
+            public FieldType getType() {
+                return type;
+            }
+
+            @Override
+            public String getString(int row) {
+                return rows.get(row).getValue(fieldName);
+            }
+
+            @Override
+            public Object getKey(int row) {
+                return type.parse(getString(row));
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public int compare(int row, Object key) {
+                String value = getString(row);
+                return value == null ? -1 : ((Comparable<Object>) type.parse(value)).compareTo(key);
+            }
+
+            @Override
+            public IntPredicate equalTo(Object key) {
+                if (type == FieldType.STRING) {
+                    return row -> key.equals(getString(row));
+                }
+                return Column.super.equalTo(key);
+            }
+        };
+    }
+}
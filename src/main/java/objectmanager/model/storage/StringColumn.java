@@ -0,0 +1,67 @@
+package objectmanager.model.storage;
+
+import java.util.function.IntPredicate;
+
+import objectmanager.model.FieldType;
+
+/**
+ * Колонка строковых значений
+ */
+public class StringColumn extends ColumnVector {
+
+    private final ChunkedArray<String> values = new ChunkedArray<>();
+
+    @Override
+    public void append(String value) {
+        values.set(size++, value);
+    }
+
+    @Override
+    public void appendKey(Object key) {
+        values.set(size++, (String) key);
+    }
+
+    @Override
+    public void truncate(int newSize) {
+        for (int row = newSize; row < size; row++) {
+            values.set(row, null);
+        }
+        size = newSize;
+    }
+
+    @Override
+    public FieldType getType() {
+        return FieldType.STRING;
+    }
+
+    @Override
+    public String getString(int row) {
+        return values.get(row);
+    }
+
+    @Override
+    public Object getKey(int row) {
+        return values.get(row);
+    }
+
+    @Override
+    public int compare(int row, Object key) {
+        String value = values.get(row);
+        return value == null ? -1 : value.compareTo((String) key);
+    }
+
+    @Override
+    public int compareRows(int left, int right) {
+        String leftValue = values.get(left);
+        String rightValue = values.get(right);
+        if (leftValue == null || rightValue == null) {
+            return Boolean.compare(leftValue != null, rightValue != null);
+        }
+        return leftValue.compareTo(rightValue);
+    }
+
+    @Override
+    public IntPredicate equalTo(Object key) {
+        return row -> key.equals(values.get(row));
+    }
+}
@@ -0,0 +1,42 @@
+package objectmanager.model.storage;
+
+import objectmanager.model.DataObject;
+
+/**
+ * Хранилище строк таблицы (паттерн Strategy). Дописывать строки может только
+ * один поток одновременно; читатели обращаются лишь к строкам, опубликованным
+ * таблицей (см. {@link objectmanager.model.TableSnapshot}), и не требуют
+ * блокировок
+ */
+public interface TableStorage {
+
+    void append(DataObject dataObject);
+
+    /**
+     * Дописывает строку из уже разобранных значений полей в порядке схемы
+     * (см. {@link Column#getKey(int)}); позволяет загружать типизированные
+     * данные без промежуточного преобразования в строки
+     */
+    void appendKeys(Object[] keys);
+
+    /**
+     * @return количество записанных строк с точки зрения писателя
+     */
+    int size();
+
+    /**
+     * @return строку с указанным номером; для колоночного хранилища это
+     * представление, читающее значения из колонок
+     */
+    DataObject getRow(int row);
+
+    /**
+     * @return колонку поля с указанным порядковым номером в схеме
+     */
+    Column getColumn(int fieldIndex);
+
+    /**
+     * @return приблизительный объем памяти, занимаемый строками, в байтах
+     */
+    long estimateSize();
+}
@@ -0,0 +1,24 @@
+package objectmanager.model.storage;
+
+import objectmanager.model.FieldType;
+
+/**
+ * Колонка моментов времени, хранимых как миллисекунды от начала эпохи
+ */
+public class TimestampColumn extends LongColumn {
+
+    @Override
+    public FieldType getType() {
+        return FieldType.TIMESTAMP;
+    }
+
+    @Override
+    protected void set(int row, String value) {
+        setLong(row, FieldType.parseTimestamp(value));
+    }
+
+    @Override
+    protected String format(int row) {
+        return FieldType.formatTimestamp(getLong(row));
+    }
+}
@@ -0,0 +1,213 @@
+package objectmanager.persistence;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import objectmanager.model.DataTable;
+import objectmanager.model.FieldType;
+import objectmanager.model.TableSchema;
+import objectmanager.model.TableSnapshot;
+import objectmanager.model.storage.Column;
+
+/**
+ * Двоичный формат файла данных таблицы.
+ * <p>
+ * Заголовок: сигнатура, версия формата, имена и типы полей в порядке схемы и
+ * количество строк. Далее каждая строка записана с префиксом длины: битовая
+ * маска пустых значений и значения непустых полей в порядке полей заголовка
+ * (строки - длина и байты UTF-8, числа и даты - в двоичном виде). Начиная
+ * с версии 2 файл завершается таблицей смещений строк от начала файла (по
+ * одному int на строку), чтобы отображенный файл не просматривался целиком
+ * при открытии. Поля заголовка сопоставляются со схемой по имени, поэтому
+ * файл читается и после изменения порядка или состава полей
+ */
+final class BinaryTableFormat {
+
+    private static final int MAGIC = 0x4F4D5442;
+    private static final int VERSION = 2;
+
+    private BinaryTableFormat() {
+    }
+
+    static void write(OutputStream output, TableSnapshot snapshot) throws IOException {
+        TableSchema schema = snapshot.getSchema();
+        List<String> fieldNames = schema.getFieldNames();
+        int fieldCount = fieldNames.size();
+
+        DataOutputStream out = new DataOutputStream(output);
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeInt(fieldCount);
+        Column[] columns = new Column[fieldCount];
+        FieldType[] types = new FieldType[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            out.writeUTF(fieldNames.get(i));
+            types[i] = schema.getDataType(i);
+            out.writeUTF(types[i].getName());
+            columns[i] = snapshot.getColumn(fieldNames.get(i));
+        }
+        out.writeInt(snapshot.size());
+
+        ByteArrayOutputStream rowBuffer = new ByteArrayOutputStream();
+        DataOutputStream row = new DataOutputStream(rowBuffer);
+        byte[] nulls = new byte[(fieldCount + 7) / 8];
+        int[] rowOffsets = new int[snapshot.size()];
+        for (int r = 0; r < snapshot.size(); r++) {
+            // Смещения больше 2 ГБ не нужны: такой файл не отображается
+            rowOffsets[r] = out.size() + Integer.BYTES;
+            rowBuffer.reset();
+            for (int i = 0; i < fieldCount; i++) {
+                if (columns[i].isNull(r)) {
+                    nulls[i >> 3] |= (byte) (1 << (i & 7));
+                } else {
+                    nulls[i >> 3] &= (byte) ~(1 << (i & 7));
+                }
+            }
+            row.write(nulls);
+            for (int i = 0; i < fieldCount; i++) {
+                if (!columns[i].isNull(r)) {
+                    writeValue(row, types[i], columns[i].getKey(r));
+                }
+            }
+            out.writeInt(rowBuffer.size());
+            rowBuffer.writeTo(out);
+        }
+        for (int rowOffset : rowOffsets) {
+            out.writeInt(rowOffset);
+        }
+        out.flush();
+    }
+
+    static DataTable read(InputStream input, TableSchema schema) throws IOException {
+        DataInputStream in = new DataInputStream(input);
+        Header header = readHeader(in, schema);
+        int[] ordinals = header.ordinals();
+        FieldType[] types = header.types();
+
+        DataTable table = new DataTable(schema);
+        byte[] buffer = new byte[256];
+        for (int r = 0; r < header.rowCount(); r++) {
+            int length = in.readInt();
+            if (buffer.length < length) {
+                buffer = new byte[Math.max(length, buffer.length * 2)];
+            }
+            in.readFully(buffer, 0, length);
+            ByteBuffer row = ByteBuffer.wrap(buffer, 0, length);
+
+            Object[] keys = new Object[schema.getFieldNames().size()];
+            int position = header.nullBytes();
+            for (int i = 0; i < types.length; i++) {
+                if (isNull(row, 0, i)) {
+                    continue;
+                }
+                int ordinal = ordinals[i];
+                if (ordinal >= 0) {
+                    keys[ordinal] = convert(schema.getDataType(ordinal), types[i], readValue(row, position, types[i]));
+                }
+                position += valueLength(row, position, types[i]);
+            }
+            table.addRow(keys);
+        }
+        return table;
+    }
+
+    /**
+     * Читает заголовок файла и сопоставляет поля файла с полями схемы
+     */
+    static Header readHeader(DataInput in, TableSchema schema) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Файл не является двоичным файлом данных");
+        }
+        int version = in.readUnsignedShort();
+        if (version > VERSION) {
+            throw new IOException("Неподдерживаемая версия формата: " + version);
+        }
+
+        int fieldCount = in.readInt();
+        int[] ordinals = new int[fieldCount];
+        FieldType[] types = new FieldType[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            // Поля, которых больше нет в схеме, читаются и отбрасываются
+            ordinals[i] = schema.getFieldIndex(in.readUTF());
+            types[i] = FieldType.fromName(in.readUTF());
+        }
+        return new Header(version, ordinals, types, in.readInt());
+    }
+
+    /**
+     * Заголовок файла: для каждого поля файла - его номер в схеме (или -1,
+     * если поля больше нет) и тип, с которым оно записано
+     */
+    record Header(int version, int[] ordinals, FieldType[] types, int rowCount) {
+
+        int nullBytes() {
+            return (types.length + 7) / 8;
+        }
+
+        /**
+         * @return есть ли в конце файла таблица смещений строк
+         */
+        boolean hasRowOffsets() {
+            return version >= 2;
+        }
+    }
+
+    /**
+     * @param rowStart позиция начала строки (после префикса длины)
+     */
+    static boolean isNull(ByteBuffer data, int rowStart, int field) {
+        return (data.get(rowStart + (field >> 3)) & (1 << (field & 7))) != 0;
+    }
+
+    /**
+     * Приводит значение, записанное с типом fileType, к текущему типу поля
+     */
+    static Object convert(FieldType type, FieldType fileType, Object value) {
+        return type == fileType ? value : type.parse(fileType.format(value));
+    }
+
+    static int valueLength(ByteBuffer data, int position, FieldType type) {
+        return switch (type) {
+            case STRING -> Integer.BYTES + data.getInt(position);
+            case INT -> Integer.BYTES;
+            case LONG, TIMESTAMP, DOUBLE -> Long.BYTES;
+            case BOOLEAN -> 1;
+        };
+    }
+
+    static Object readValue(ByteBuffer data, int position, FieldType type) {
+        return switch (type) {
+            case STRING -> {
+                byte[] bytes = new byte[data.getInt(position)];
+                data.get(position + Integer.BYTES, bytes);
+                yield new String(bytes, StandardCharsets.UTF_8);
+            }
+            case INT -> data.getInt(position);
+            case LONG, TIMESTAMP -> data.getLong(position);
+            case DOUBLE -> data.getDouble(position);
+            case BOOLEAN -> data.get(position) != 0;
+        };
+    }
+
+    private static void writeValue(DataOutputStream out, FieldType type, Object value) throws IOException {
+        switch (type) {
+            case STRING -> {
+                byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            case INT -> out.writeInt((Integer) value);
+            case LONG, TIMESTAMP -> out.writeLong((Long) value);
+            case DOUBLE -> out.writeDouble((Double) value);
+            case BOOLEAN -> out.writeBoolean((Boolean) value);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package objectmanager.persistence;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Поток, распаковывающий файл, записанный {@link BlockCompressedOutputStream}.
+ * Сжатые блоки читаются последовательно, а распаковываются параллельно с
+ * опережением на несколько блоков, пока читатель разбирает текущий
+ */
+final class BlockCompressedInputStream extends InputStream {
+
+    private final DataInputStream in;
+    private final Deque<CompletableFuture<byte[]>> pending = new ArrayDeque<>();
+    private final int readAhead = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private boolean endOfBlocks;
+    private byte[] block = new byte[0];
+    private int position;
+
+    BlockCompressedInputStream(InputStream input) throws IOException {
+        in = new DataInputStream(input);
+        if (in.readInt() != BlockCompressedOutputStream.MAGIC) {
+            throw new IOException("Файл не является сжатым файлом данных");
+        }
+        int version = in.readUnsignedShort();
+        if (version > BlockCompressedOutputStream.VERSION) {
+            throw new IOException("Неподдерживаемая версия сжатого формата: " + version);
+        }
+        in.readInt();
+    }
+
+    /**
+     * Проверяет сигнатуру в начале потока, не сдвигая его
+     */
+    static boolean isCompressed(InputStream input) throws IOException {
+        input.mark(Integer.BYTES);
+        try {
+            byte[] signature = input.readNBytes(Integer.BYTES);
+            return signature.length == Integer.BYTES
+                    && ((signature[0] & 0xFF) << 24 | (signature[1] & 0xFF) << 16
+                    | (signature[2] & 0xFF) << 8 | (signature[3] & 0xFF)) == BlockCompressedOutputStream.MAGIC;
+        } finally {
+            input.reset();
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (position == block.length && !nextBlock()) {
+            return -1;
+        }
+        return block[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (position == block.length && !nextBlock()) {
+            return -1;
+        }
+        int chunk = Math.min(length, block.length - position);
+        System.arraycopy(block, position, bytes, offset, chunk);
+        position += chunk;
+        return chunk;
+    }
+
+    private boolean nextBlock() throws IOException {
+        while (!endOfBlocks && pending.size() < readAhead) {
+            int rawLength = in.readInt();
+            int compressedLength = in.readInt();
+            if (rawLength == 0) {
+                endOfBlocks = true;
+                break;
+            }
+            byte[] compressed = in.readNBytes(compressedLength);
+            if (compressed.length != compressedLength) {
+                throw new IOException("Сжатый файл данных обрывается посреди блока");
+            }
+            pending.add(CompletableFuture.supplyAsync(() -> inflate(compressed, rawLength)));
+        }
+
+        CompletableFuture<byte[]> next = pending.poll();
+        if (next == null) {
+            return false;
+        }
+        try {
+            block = next.join();
+        } catch (CompletionException e) {
+            throw new IOException("Поврежденный блок сжатого файла данных", e.getCause());
+        }
+        position = 0;
+        return true;
+    }
+
+    private static byte[] inflate(byte[] compressed, int rawLength) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] raw = new byte[rawLength];
+            int length = 0;
+            while (length < rawLength && !inflater.finished()) {
+                int inflated = inflater.inflate(raw, length, rawLength - length);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += inflated;
+            }
+            if (length != rawLength) {
+                throw new IllegalStateException("Размер распакованного блока не совпадает с заголовком");
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        pending.clear();
+        in.close();
+    }
+}
@@ -0,0 +1,108 @@
+package objectmanager.persistence;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+/**
+ * Поток, сжимающий данные независимыми блоками Deflate.
+ * <p>
+ * Формат: сигнатура, версия, размер блока, затем блоки вида "исходная длина,
+ * сжатая длина, сжатые байты" и завершающий блок с нулевыми длинами. Каждый
+ * блок распаковывается отдельно, поэтому блоки можно распаковывать
+ * параллельно и пропускать, не распаковывая
+ */
+final class BlockCompressedOutputStream extends OutputStream {
+
+    static final int MAGIC = 0x4F4D425A;
+    static final int VERSION = 1;
+    static final int BLOCK_SIZE = 256 * 1024;
+
+    private final DataOutputStream out;
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private final byte[] block = new byte[BLOCK_SIZE];
+    private byte[] compressed = new byte[BLOCK_SIZE];
+    private int count;
+    private boolean finished;
+
+    BlockCompressedOutputStream(OutputStream output) throws IOException {
+        out = new DataOutputStream(output);
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeInt(BLOCK_SIZE);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (count == block.length) {
+            writeBlock();
+        }
+        block[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (count == block.length) {
+                writeBlock();
+            }
+            int chunk = Math.min(length, block.length - count);
+            System.arraycopy(bytes, offset, block, count, chunk);
+            count += chunk;
+            offset += chunk;
+            length -= chunk;
+        }
+    }
+
+    /**
+     * Незаполненный блок не сжимается, чтобы промежуточные сбросы не дробили
+     * файл на мелкие блоки
+     */
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Сжимает последний блок и записывает завершающий блок; поток под ним
+     * остается открытым
+     */
+    void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        if (count > 0) {
+            writeBlock();
+        }
+        out.writeInt(0);
+        out.writeInt(0);
+        out.flush();
+        deflater.end();
+        finished = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+        out.close();
+    }
+
+    private void writeBlock() throws IOException {
+        deflater.reset();
+        deflater.setInput(block, 0, count);
+        deflater.finish();
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == compressed.length) {
+                compressed = Arrays.copyOf(compressed, compressed.length * 2);
+            }
+            length += deflater.deflate(compressed, length, compressed.length - length);
+        }
+        out.writeInt(count);
+        out.writeInt(length);
+        out.write(compressed, 0, length);
+        count = 0;
+    }
+}
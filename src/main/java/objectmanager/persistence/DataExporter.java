@@ -0,0 +1,140 @@
+package objectmanager.persistence;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+import objectmanager.model.FieldType;
+import objectmanager.model.TableSchema;
+import objectmanager.model.TableSnapshot;
+import objectmanager.model.storage.Column;
+
+/**
+ * Выгрузка строк снимка таблицы в файл JSON Lines или CSV. Строки
+ * проверяются и записываются по одной прямо из колонок снимка в
+ * буферизованный поток, поэтому промежуточный список результата не
+ * создается. Файлы читаются обратно командой import (см. {@link DataImporter})
+ */
+public class DataExporter {
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    /**
+     * @param rowIds номера выгружаемых строк или null для всех неудаленных
+     * строк снимка
+     * @param condition условие отбора строк или null
+     * @return количество записанных строк
+     */
+    public long export(TableSnapshot snapshot, int[] rowIds, IntPredicate condition, Path file,
+            ExchangeFormat format) throws IOException {
+        TableSchema schema = snapshot.getSchema();
+        List<String> fieldNames = schema.getFieldNames();
+        Column[] columns = new Column[fieldNames.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = snapshot.getColumn(fieldNames.get(i));
+        }
+
+        condition = rowIds == null ? snapshot.visible(condition) : condition;
+        long written = 0;
+        try (Writer writer = new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            StringBuilder line = new StringBuilder(256);
+            if (format == ExchangeFormat.CSV) {
+                for (int i = 0; i < columns.length; i++) {
+                    if (i > 0) {
+                        line.append(',');
+                    }
+                    appendCsvValue(line, fieldNames.get(i));
+                }
+                writer.append(line).append('\n');
+            }
+
+            int count = rowIds == null ? snapshot.size() : rowIds.length;
+            for (int i = 0; i < count; i++) {
+                int row = rowIds == null ? i : rowIds[i];
+                if (condition != null && !condition.test(row)) {
+                    continue;
+                }
+                line.setLength(0);
+                if (format == ExchangeFormat.CSV) {
+                    appendCsvRow(line, columns, row);
+                } else {
+                    appendJsonRow(line, fieldNames, columns, row);
+                }
+                writer.append(line).append('\n');
+                written++;
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        return written;
+    }
+
+    private static void appendCsvRow(StringBuilder line, Column[] columns, int row) {
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            String value = columns[i].getString(row);
+            if (value != null) {
+                appendCsvValue(line, value);
+            }
+        }
+    }
+
+    /**
+     * Значение заключается в кавычки, если содержит разделитель, кавычки или
+     * перевод строки, а также если оно пустое, чтобы отличать его от null
+     */
+    private static void appendCsvValue(StringBuilder line, String value) {
+        boolean quote = value.isEmpty();
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            line.append(c);
+            if (c == '"') {
+                line.append('"');
+            }
+        }
+        line.append('"');
+    }
+
+    /**
+     * Числа и логические значения записываются без кавычек, остальные типы -
+     * строками JSON
+     */
+    private static void appendJsonRow(StringBuilder line, List<String> fieldNames, Column[] columns, int row) {
+        line.append('{');
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            JsonText.appendString(line, fieldNames.get(i));
+            line.append(':');
+            String value = columns[i].getString(row);
+            FieldType type = columns[i].getType();
+            if (value == null) {
+                line.append("null");
+            } else if (type == FieldType.INT || type == FieldType.LONG || type == FieldType.BOOLEAN
+                    || type == FieldType.DOUBLE && Double.isFinite(columns[i].doubleValue(row))) {
+                line.append(value);
+            } else {
+                JsonText.appendString(line, value);
+            }
+        }
+        line.append('}');
+    }
+}
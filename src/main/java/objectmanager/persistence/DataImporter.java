@@ -0,0 +1,327 @@
+package objectmanager.persistence;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import objectmanager.model.FieldType;
+import objectmanager.model.TableSchema;
+
+/**
+ * Разбор файла для пакетного импорта строк. Файл читается последовательно,
+ * а части по {@link #CHUNK_LINES} строк разбираются и проверяются по схеме
+ * параллельно. Значения приводятся к типам полей, поэтому при добавлении в
+ * таблицу повторно не разбираются.
+ * <p>
+ * Чтобы ошибка в любой строке не оставляла в таблице часть файла, до
+ * добавления в памяти хранится весь разобранный файл: для строк из
+ * нескольких коротких полей это примерно в 4-5 раз больше размера файла.
+ * Файл, который не помещается в кучу, нужно загружать частями
+ */
+public class DataImporter {
+
+    private static final int CHUNK_LINES = 16 * 1024;
+
+    private final Executor executor;
+
+    /**
+     * @param executor исполнитель, в котором разбираются части файла
+     */
+    public DataImporter(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * @return значения полей всех строк файла в порядке схемы, частями в
+     * порядке строк файла
+     * @throws IllegalArgumentException если строка файла не соответствует
+     * формату или схеме; в сообщении указывается номер строки
+     */
+    public List<Object[][]> parse(Path file, TableSchema schema, ExchangeFormat format) throws IOException {
+        List<CompletableFuture<Object[][]>> chunks = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            RecordReader records = format == ExchangeFormat.CSV ? new CsvRecordReader(reader) : new LineReader(reader);
+            int[] columnFields = null;
+            if (format == ExchangeFormat.CSV) {
+                String header = records.next();
+                if (header == null) {
+                    return List.of();
+                }
+                columnFields = mapHeader(header, schema);
+            }
+
+            List<String> lines = new ArrayList<>(CHUNK_LINES);
+            int[] lineNumbers = new int[CHUNK_LINES];
+            String record;
+            while ((record = records.next()) != null) {
+                lineNumbers[lines.size()] = records.getLineNumber();
+                lines.add(record);
+                if (lines.size() == CHUNK_LINES) {
+                    chunks.add(submit(lines, lineNumbers, schema, format, columnFields));
+                    lines = new ArrayList<>(CHUNK_LINES);
+                    lineNumbers = new int[CHUNK_LINES];
+                }
+            }
+            if (!lines.isEmpty()) {
+                chunks.add(submit(lines, lineNumbers, schema, format, columnFields));
+            }
+        }
+
+        List<Object[][]> result = new ArrayList<>(chunks.size());
+        try {
+            for (CompletableFuture<Object[][]> chunk : chunks) {
+                result.add(chunk.join());
+            }
+        } catch (CompletionException e) {
+            chunks.forEach(chunk -> chunk.cancel(false));
+            if (e.getCause() instanceof IllegalArgumentException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return result;
+    }
+
+    private CompletableFuture<Object[][]> submit(List<String> lines, int[] lineNumbers, TableSchema schema,
+            ExchangeFormat format, int[] columnFields) {
+        return CompletableFuture.supplyAsync(() -> parseChunk(lines, lineNumbers, schema, format, columnFields),
+                executor);
+    }
+
+    /**
+     * @param lineNumbers номер строки файла, с которой начинается каждая запись
+     */
+    private Object[][] parseChunk(List<String> lines, int[] lineNumbers, TableSchema schema,
+            ExchangeFormat format, int[] columnFields) {
+        List<Object[]> rows = new ArrayList<>(lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                rows.add(format == ExchangeFormat.CSV
+                        ? parseCsvRow(line, schema, columnFields) : parseJsonRow(line, schema));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Строка " + lineNumbers[i] + ": " + e.getMessage(), e);
+            }
+        }
+        return rows.toArray(new Object[0][]);
+    }
+
+    private Object[] parseJsonRow(String line, TableSchema schema) {
+        JsonObject object = JsonParser.parseString(line).getAsJsonObject();
+        List<String> fieldNames = schema.getFieldNames();
+        Object[] keys = new Object[fieldNames.size()];
+        for (int i = 0; i < keys.length; i++) {
+            JsonElement element = object.get(fieldNames.get(i));
+            if (element == null) {
+                throw new IllegalArgumentException("Отсутствует обязательное поле: " + fieldNames.get(i));
+            }
+            keys[i] = element.isJsonNull() ? null : schema.getDataType(i).parse(element.getAsString());
+        }
+        return keys;
+    }
+
+    /**
+     * @return номер поля схемы для каждой колонки файла
+     */
+    private static int[] mapHeader(String header, TableSchema schema) {
+        List<String> columns = splitCsv(header.startsWith("\uFEFF") ? header.substring(1) : header);
+        int[] columnFields = new int[columns.size()];
+        boolean[] present = new boolean[schema.getFieldNames().size()];
+        for (int i = 0; i < columnFields.length; i++) {
+            String column = columns.get(i) == null ? "" : columns.get(i).trim();
+            int fieldIndex = schema.getFieldIndex(column);
+            if (fieldIndex < 0) {
+                throw new IllegalArgumentException("Строка 1: поле " + column + " отсутствует в схеме таблицы");
+            }
+            if (present[fieldIndex]) {
+                throw new IllegalArgumentException("Строка 1: поле " + column + " указано дважды");
+            }
+            present[fieldIndex] = true;
+            columnFields[i] = fieldIndex;
+        }
+        for (int i = 0; i < present.length; i++) {
+            if (!present[i]) {
+                throw new IllegalArgumentException("Строка 1: отсутствует обязательное поле: "
+                        + schema.getFieldNames().get(i));
+            }
+        }
+        return columnFields;
+    }
+
+    private static Object[] parseCsvRow(String line, TableSchema schema, int[] columnFields) {
+        List<String> values = splitCsv(line);
+        if (values.size() != columnFields.length) {
+            throw new IllegalArgumentException("ожидалось значений: " + columnFields.length
+                    + ", найдено: " + values.size());
+        }
+        Object[] keys = new Object[columnFields.length];
+        for (int i = 0; i < columnFields.length; i++) {
+            FieldType type = schema.getDataType(columnFields[i]);
+            keys[columnFields[i]] = type.parse(values.get(i));
+        }
+        return keys;
+    }
+
+    /**
+     * Разбивает строку CSV на значения. Пустое значение без кавычек
+     * означает null, а "" - пустую строку
+     */
+    static List<String> splitCsv(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        boolean inQuotes = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (inQuotes) {
+                if (c != '"') {
+                    value.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else {
+                    inQuotes = false;
+                }
+            } else if (c == '"') {
+                inQuotes = true;
+                quoted = true;
+            } else if (c == ',') {
+                values.add(quoted || value.length() > 0 ? value.toString() : null);
+                value.setLength(0);
+                quoted = false;
+            } else {
+                value.append(c);
+            }
+        }
+        if (inQuotes) {
+            throw new IllegalArgumentException("незакрытая кавычка");
+        }
+        values.add(quoted || value.length() > 0 ? value.toString() : null);
+        return values;
+    }
+
+    /**
+     * Последовательное чтение записей файла
+     */
+    private interface RecordReader {
+
+        /**
+         * @return следующая запись без завершающего перевода строки или null
+         * в конце файла
+         */
+        String next() throws IOException;
+
+        /**
+         * @return номер строки файла, с которой начинается последняя
+         * прочитанная запись
+         */
+        int getLineNumber();
+    }
+
+    /**
+     * Запись JSON Lines занимает одну строку файла
+     */
+    private static final class LineReader implements RecordReader {
+
+        private final BufferedReader reader;
+        private int lineNumber;
+
+        LineReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public String next() throws IOException {
+            String line = reader.readLine();
+            if (line != null) {
+                lineNumber++;
+            }
+            return line;
+        }
+
+        @Override
+        public int getLineNumber() {
+            return lineNumber;
+        }
+    }
+
+    /**
+     * Запись CSV завершается переводом строки вне кавычек: значение в
+     * кавычках может содержать переводы строк, которые сохраняются как есть
+     */
+    private static final class CsvRecordReader implements RecordReader {
+
+        private final Reader reader;
+        private final char[] buffer = new char[64 * 1024];
+        private final StringBuilder record = new StringBuilder();
+        private int position;
+        private int limit;
+        private boolean skipLineFeed;
+        private int nextLineNumber = 1;
+        private int lineNumber;
+
+        CsvRecordReader(Reader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public String next() throws IOException {
+            record.setLength(0);
+            lineNumber = nextLineNumber;
+            boolean inQuotes = false;
+            boolean empty = true;
+            while (true) {
+                if (position == limit) {
+                    limit = reader.read(buffer);
+                    position = 0;
+                    if (limit <= 0) {
+                        limit = 0;
+                        return empty ? null : record.toString();
+                    }
+                }
+                char c = buffer[position++];
+                if (skipLineFeed) {
+                    // \r\n - один перевод строки
+                    skipLineFeed = false;
+                    if (c == '\n') {
+                        if (inQuotes) {
+                            record.append(c);
+                        }
+                        continue;
+                    }
+                }
+                empty = false;
+                if (c == '"') {
+                    inQuotes = !inQuotes;
+                } else if (c == '\n' || c == '\r') {
+                    nextLineNumber++;
+                    skipLineFeed = c == '\r';
+                    if (!inQuotes) {
+                        return record.toString();
+                    }
+                }
+                record.append(c);
+            }
+        }
+
+        @Override
+        public int getLineNumber() {
+            return lineNumber;
+        }
+    }
+}
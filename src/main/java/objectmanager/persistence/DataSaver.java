@@ -1,70 +1,193 @@
 package objectmanager.persistence;
 
-import java.io.FileWriter;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.Writer;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.List;
 
 import org.springframework.stereotype.Component;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 
-import objectmanager.model.DataObject;
+import objectmanager.model.Compression;
+import objectmanager.model.DataFormat;
 import objectmanager.model.DataTable;
 import objectmanager.model.TableSchema;
+import objectmanager.model.TableSnapshot;
+import objectmanager.model.storage.Column;
 
 /**
- * Сохраняет данные и схемы в JSON файлы
+ * Сохраняет данные и схемы в JSON файлы. Файл сначала пишется во временный
+ * файл рядом с исходным и затем атомарно переименовывается, поэтому сбой во
+ * время сохранения не портит уже сохраненные данные
  */
 @Component
 public class DataSaver {
 
-    private final Gson gson;
+    private static final String TEMP_EXTENSION = ".tmp";
+    private static final int BUFFER_SIZE = 64 * 1024;
 
-    public DataSaver() {
-        gson = new GsonBuilder().setPrettyPrinting().create();
+    private boolean prettyPrint = true;
+
+    /**
+     * Включает форматированный (с отступами) вывод файлов данных.
+     * Компактный вывод заметно меньше и быстрее пишется на больших таблицах
+     */
+    public void setPrettyPrint(boolean prettyPrint) {
+        this.prettyPrint = prettyPrint;
     }
 
     public void saveSchema(Path tablesDirectory, TableSchema schema) throws IOException {
         String tableName = schema.getTableName();
         Path schemaFilePath = tablesDirectory.resolve(tableName + ".json");
 
-        try (Writer writer = new FileWriter(schemaFilePath.toFile())) {
-            JsonObject schemaJson = new JsonObject();
-            schemaJson.addProperty("description", schema.getDescription());
+        writeJsonAtomically(schemaFilePath, true, Compression.NONE, writer -> {
+            writer.beginObject();
+            writer.name("description").value(schema.getDescription());
 
-            JsonObject fieldsJson = new JsonObject();
+            writer.name("fields").beginObject();
             for (String fieldName : schema.getFieldNames()) {
-                fieldsJson.addProperty(fieldName, schema.getFieldType(fieldName));
+                writer.name(fieldName).value(schema.getFieldType(fieldName));
             }
-            schemaJson.add("fields", fieldsJson);
+            writer.endObject();
+            writer.name("storage").value(schema.getStorageType().getName());
+            writer.name("format").value(schema.getDataFormat().getName());
+            writer.name("compression").value(schema.getCompression().getName());
 
-            gson.toJson(schemaJson, writer);
-        }
+            if (!schema.getIndexes().isEmpty()) {
+                writer.name("indexes").beginObject();
+                for (var entry : schema.getIndexes().entrySet()) {
+                    writer.name(entry.getKey()).value(entry.getValue().getName());
+                }
+                writer.endObject();
+            }
+            writer.endObject();
+        });
     }
 
+    /**
+     * Сохраняет данные в формате, заданном схемой таблицы
+     */
     public void saveData(Path dataDirectory, DataTable table) throws IOException {
-        String tableName = table.getSchema().getTableName();
-        Path dataFilePath = dataDirectory.resolve(tableName + ".json");
-
-        try (Writer writer = new FileWriter(dataFilePath.toFile())) {
-            List<DataObject> objects = table.getDataObjects();
-            JsonArray dataArray = new JsonArray();
-
-            for (DataObject obj : objects) {
-                JsonObject jsonObj = new JsonObject();
-                for (String fieldName : table.getSchema().getFieldNames()) {
-                    String value = obj.getValue(fieldName);
-                    jsonObj.addProperty(fieldName, value);
+        saveData(dataDirectory, table, table.getSchema().getDataFormat(), table.getSchema().getCompression());
+    }
+
+    /**
+     * Потоково записывает строки снимка таблицы в указанном формате, не
+     * собирая промежуточное представление в памяти
+     */
+    public void saveData(Path dataDirectory, DataTable table, DataFormat format, Compression compression)
+            throws IOException {
+        saveSnapshot(dataDirectory, table.snapshot(), format, compression);
+    }
+
+    /**
+     * Сохраняет снимок таблицы. Снимок не меняется при последующих вставках,
+     * поэтому сохранение не блокирует запись в таблицу
+     */
+    public void saveSnapshot(Path dataDirectory, TableSnapshot snapshot, DataFormat format, Compression compression)
+            throws IOException {
+        TableSchema schema = snapshot.getSchema();
+        saveSnapshotTo(dataDirectory.resolve(schema.getTableName() + format.getExtension()), snapshot, format,
+                compression);
+    }
+
+    /**
+     * Сохраняет снимок таблицы в указанный файл. Номера строк файла совпадают
+     * с номерами строк таблицы, на которые ссылается журнал предзаписи,
+     * поэтому снимок с удаленными строками сохраняется только после
+     * уплотнения таблицы
+     *
+     * @throws IllegalStateException если в снимке есть удаленные строки
+     */
+    public void saveSnapshotTo(Path dataFilePath, TableSnapshot snapshot, DataFormat format, Compression compression)
+            throws IOException {
+        if (snapshot.hasDeletedRows()) {
+            throw new IllegalStateException("Таблица " + snapshot.getSchema().getTableName()
+                    + " содержит удаленные строки и должна быть уплотнена перед сохранением");
+        }
+        TableSchema schema = snapshot.getSchema();
+
+        if (format == DataFormat.BINARY) {
+            writeAtomically(dataFilePath, compression, output -> BinaryTableFormat.write(output, snapshot));
+            return;
+        }
+
+        List<String> fieldNames = schema.getFieldNames();
+        Column[] columns = new Column[fieldNames.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = snapshot.getColumn(fieldNames.get(i));
+        }
+
+        writeJsonAtomically(dataFilePath, prettyPrint, compression, writer -> {
+            writer.beginArray();
+            for (int row = 0; row < snapshot.size(); row++) {
+                writer.beginObject();
+                for (int i = 0; i < columns.length; i++) {
+                    if (!columns[i].isNull(row)) {
+                        writer.name(fieldNames.get(i)).value(columns[i].getString(row));
+                    }
                 }
-                dataArray.add(jsonObj);
+                writer.endObject();
             }
+            writer.endArray();
+        });
+    }
 
-            gson.toJson(dataArray, writer);
+    private void writeJsonAtomically(Path filePath, boolean indent, Compression compression, JsonContent content)
+            throws IOException {
+        writeAtomically(filePath, compression, output -> {
+            JsonWriter writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8)));
+            writer.setSerializeNulls(false);
+            if (indent) {
+                writer.setIndent("  ");
+            }
+            content.write(writer);
+            writer.flush();
+        });
+    }
+
+    private void writeAtomically(Path filePath, Compression compression, FileContent content) throws IOException {
+        Path tempFilePath = filePath.resolveSibling(filePath.getFileName() + TEMP_EXTENSION);
+        try {
+            try (FileOutputStream output = new FileOutputStream(tempFilePath.toFile())) {
+                BufferedOutputStream buffered = new BufferedOutputStream(output, BUFFER_SIZE);
+                if (compression == Compression.DEFLATE) {
+                    BlockCompressedOutputStream blocks = new BlockCompressedOutputStream(buffered);
+                    content.write(blocks);
+                    blocks.finish();
+                } else {
+                    content.write(buffered);
+                }
+                buffered.flush();
+                output.getFD().sync();
+            }
+            try {
+                Files.move(tempFilePath, filePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFilePath, filePath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFilePath);
+            throw e;
         }
     }
+
+    @FunctionalInterface
+    private interface FileContent {
+        void write(OutputStream output) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface JsonContent {
+        void write(JsonWriter writer) throws IOException;
+    }
 }
@@ -0,0 +1,50 @@
+package objectmanager.persistence;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Текстовый формат файлов для обмена строками таблиц с другими системами
+ */
+public enum ExchangeFormat {
+
+    /**
+     * Объект JSON на каждой строке файла
+     */
+    JSONL("jsonl", ".jsonl"),
+    /**
+     * Значения через запятую с заголовком из имен полей; значения с запятыми
+     * и кавычками заключаются в двойные кавычки
+     */
+    CSV("csv", ".csv");
+
+    private final String name;
+    private final String extension;
+
+    ExchangeFormat(String name, String extension) {
+        this.name = name;
+        this.extension = extension;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public static ExchangeFormat fromName(String name) {
+        for (ExchangeFormat format : values()) {
+            if (format.name.equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Неизвестный формат файла: " + name);
+    }
+
+    /**
+     * @return формат по расширению файла; JSON Lines, если расширение
+     * не .csv
+     */
+    public static ExchangeFormat fromFileName(Path file) {
+        String fileName = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return fileName.endsWith(CSV.extension) ? CSV : JSONL;
+    }
+}
@@ -0,0 +1,39 @@
+package objectmanager.persistence;
+
+/**
+ * Политика сброса журнала предзаписи на диск
+ */
+public enum FsyncPolicy {
+
+    /**
+     * После каждой записи: вставка подтверждается только после сброса на диск
+     */
+    ALWAYS("always"),
+    /**
+     * Периодически, фоновой задачей
+     */
+    PERIODIC("periodic"),
+    /**
+     * Сброс остается на усмотрение операционной системы
+     */
+    NEVER("never");
+
+    private final String name;
+
+    FsyncPolicy(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public static FsyncPolicy fromName(String name) {
+        for (FsyncPolicy policy : values()) {
+            if (policy.name.equalsIgnoreCase(name)) {
+                return policy;
+            }
+        }
+        throw new IllegalArgumentException("Неизвестная политика fsync: " + name);
+    }
+}
@@ -0,0 +1,37 @@
+package objectmanager.persistence;
+
+/**
+ * Запись строковых значений JSON без промежуточного дерева Gson для
+ * построчных форматов, где формирование текста - основная часть работы
+ */
+final class JsonText {
+
+    private JsonText() {
+    }
+
+    /**
+     * Дописывает значение в кавычках, экранируя кавычки, обратную косую черту
+     * и управляющие символы
+     */
+    static void appendString(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,186 @@
+package objectmanager.persistence;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import objectmanager.model.DataObject;
+import objectmanager.model.FieldType;
+import objectmanager.model.TableSchema;
+import objectmanager.model.storage.Column;
+import objectmanager.model.storage.TableStorage;
+
+/**
+ * Хранилище только для чтения поверх отображенного в память двоичного файла
+ * данных (см. {@link BinaryTableFormat}). Значения не копируются в кучу, а
+ * читаются из файла при обращении; страницы файла находятся в кеше
+ * операционной системы и разделяются между процессами, отобразившими тот же
+ * файл. Смещения строк также читаются из отображенной таблицы смещений в
+ * конце файла, поэтому открытие не просматривает строки и не зависит от
+ * размера файла. В файле версии 1 таблицы смещений нет: при открытии такого
+ * файла просматриваются префиксы длины всех строк (все страницы файла
+ * читаются с диска), а смещения хранятся в куче. Конвертация таблицы в
+ * mapped перезаписывает файл в текущей версии
+ */
+final class MappedTableStorage implements TableStorage {
+
+    private final TableSchema schema;
+    private final ByteBuffer data;
+    private final IntBuffer rowOffsets;
+    private final FieldType[] fileTypes;
+    private final int[] fileFields;
+    private final int nullBytes;
+
+    private MappedTableStorage(TableSchema schema, ByteBuffer data, BinaryTableFormat.Header header,
+            IntBuffer rowOffsets) {
+        this.schema = schema;
+        this.data = data;
+        this.rowOffsets = rowOffsets;
+        this.fileTypes = header.types();
+        this.nullBytes = header.nullBytes();
+        this.fileFields = new int[schema.getFieldNames().size()];
+        Arrays.fill(fileFields, -1);
+        for (int i = 0; i < header.ordinals().length; i++) {
+            if (header.ordinals()[i] >= 0) {
+                fileFields[header.ordinals()[i]] = i;
+            }
+        }
+    }
+
+    /**
+     * Отображает файл в память вместе с таблицей смещений строк
+     */
+    static MappedTableStorage open(Path dataFilePath, TableSchema schema) throws IOException {
+        MappedByteBuffer data;
+        try (FileChannel channel = FileChannel.open(dataFilePath, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Файл слишком велик для отображения в память: " + channel.size() + " байт");
+            }
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        ByteBuffer reader = data.duplicate();
+        BinaryTableFormat.Header header = BinaryTableFormat.readHeader(new DataInputStream(new InputStream() {
+            @Override
+            public int read() {
+                return reader.hasRemaining() ? reader.get() & 0xFF : -1;
+            }
+        }), schema);
+
+        if (header.hasRowOffsets()) {
+            long offsetsStart = data.limit() - (long) header.rowCount() * Integer.BYTES;
+            if (header.rowCount() < 0 || offsetsStart < reader.position()) {
+                throw new IOException("Таблица смещений строк повреждена: " + dataFilePath);
+            }
+            return new MappedTableStorage(schema, data, header,
+                    data.slice((int) offsetsStart, header.rowCount() * Integer.BYTES).asIntBuffer());
+        }
+
+        int[] rowOffsets = new int[header.rowCount()];
+        int position = reader.position();
+        for (int row = 0; row < rowOffsets.length; row++) {
+            rowOffsets[row] = position + Integer.BYTES;
+            position = rowOffsets[row] + data.getInt(position);
+        }
+        return new MappedTableStorage(schema, data, header, IntBuffer.wrap(rowOffsets));
+    }
+
+    @Override
+    public void append(DataObject dataObject) {
+        throw readOnly();
+    }
+
+    @Override
+    public void appendKeys(Object[] keys) {
+        throw readOnly();
+    }
+
+    private UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("Таблица " + schema.getTableName()
+                + " отображена в память и доступна только для чтения");
+    }
+
+    @Override
+    public int size() {
+        return rowOffsets.limit();
+    }
+
+    @Override
+    public DataObject getRow(int row) {
+        DataObject dataObject = new DataObject();
+        for (int i = 0; i < fileFields.length; i++) {
+            dataObject.setValue(schema.getFieldNames().get(i), schema.getDataType(i).format(getKey(row, i)));
+        }
+        return dataObject;
+    }
+
+    @Override
+    public Column getColumn(int fieldIndex) {
+        FieldType type = schema.getDataType(fieldIndex);
+        return new Column() {
+            @Override
+            public FieldType getType() {
+                return type;
+            }
+
+            @Override
+            public String getString(int row) {
+                return type.format(getKey(row));
+            }
+
+            @Override
+            public boolean isNull(int row) {
+                int field = fileFields[fieldIndex];
+                return field < 0 || BinaryTableFormat.isNull(data, rowOffsets.get(row), field);
+            }
+
+            @Override
+            public Object getKey(int row) {
+                return MappedTableStorage.this.getKey(row, fieldIndex);
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public int compare(int row, Object key) {
+                Object value = getKey(row);
+                return value == null ? -1 : ((Comparable<Object>) value).compareTo(key);
+            }
+        };
+    }
+
+    /**
+     * Читает значение поля, пропуская предшествующие ему непустые значения
+     * строки
+     */
+    private Object getKey(int row, int fieldIndex) {
+        int field = fileFields[fieldIndex];
+        int rowStart = rowOffsets.get(row);
+        if (field < 0 || BinaryTableFormat.isNull(data, rowStart, field)) {
+            return null;
+        }
+
+        int position = rowStart + nullBytes;
+        for (int i = 0; i < field; i++) {
+            if (!BinaryTableFormat.isNull(data, rowStart, i)) {
+                position += BinaryTableFormat.valueLength(data, position, fileTypes[i]);
+            }
+        }
+        return BinaryTableFormat.convert(schema.getDataType(fieldIndex), fileTypes[field],
+                BinaryTableFormat.readValue(data, position, fileTypes[field]));
+    }
+
+    /**
+     * В куче хранятся только смещения строк файла версии 1
+     */
+    @Override
+    public long estimateSize() {
+        return rowOffsets.isDirect() ? 0 : (long) rowOffsets.limit() * Integer.BYTES;
+    }
+}
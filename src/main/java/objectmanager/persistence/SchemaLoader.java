@@ -3,7 +3,7 @@ package objectmanager.persistence;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
 
@@ -13,6 +13,11 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 
+import objectmanager.model.Compression;
+import objectmanager.model.DataFormat;
+import objectmanager.model.FieldType;
+import objectmanager.model.StorageType;
+import objectmanager.model.index.IndexType;
 import objectmanager.model.TableSchema;
 
 /**
@@ -43,13 +48,13 @@ public class SchemaLoader {
                 schema.setDescription("Таблица " + tableName);
             }
 
-            Map<String, String> fields = new HashMap<>();
+            Map<String, String> fields = new LinkedHashMap<>();
             if (jsonObject.has("fields") && jsonObject.get("fields").isJsonObject()) {
                 JsonObject fieldsJson = jsonObject.getAsJsonObject("fields");
                 for (Map.Entry<String, JsonElement> entry : fieldsJson.entrySet()) {
                     String fieldName = entry.getKey();
                     String fieldType = entry.getValue().getAsString();
-                    fields.put(fieldName, fieldType);
+                    fields.put(fieldName, knownFieldType(schemaFilePath, fieldName, fieldType));
                 }
             }
 
@@ -59,6 +64,32 @@ public class SchemaLoader {
             }
 
             schema.setFields(fields);
+
+            if (jsonObject.has("storage") && jsonObject.get("storage").isJsonPrimitive()) {
+                schema.setStorageType(StorageType.fromName(jsonObject.get("storage").getAsString()));
+            }
+
+            if (jsonObject.has("format") && jsonObject.get("format").isJsonPrimitive()) {
+                schema.setDataFormat(DataFormat.fromName(jsonObject.get("format").getAsString()));
+            }
+
+            if (jsonObject.has("compression") && jsonObject.get("compression").isJsonPrimitive()) {
+                schema.setCompression(Compression.fromName(jsonObject.get("compression").getAsString()));
+            }
+
+            if (schema.getStorageType() == StorageType.MAPPED) {
+                schema.setDataFormat(DataFormat.BINARY);
+                schema.setCompression(Compression.NONE);
+            }
+
+            if (jsonObject.has("indexes") && jsonObject.get("indexes").isJsonObject()) {
+                for (Map.Entry<String, JsonElement> entry : jsonObject.getAsJsonObject("indexes").entrySet()) {
+                    if (fields.containsKey(entry.getKey())) {
+                        schema.addIndex(entry.getKey(), IndexType.fromName(entry.getValue().getAsString()));
+                    }
+                }
+            }
+
             return Optional.of(schema);
 
         } catch (IOException e) {
@@ -69,4 +100,20 @@ public class SchemaLoader {
             return Optional.empty();
         }
     }
+
+    /**
+     * Схемы, созданные до проверки типов полей, могут содержать любой тип.
+     * Поле неизвестного типа читается как строковое, чтобы таблица не
+     * пропала при запуске
+     */
+    private static String knownFieldType(Path schemaFilePath, String fieldName, String fieldType) {
+        try {
+            FieldType.fromName(fieldType);
+            return fieldType;
+        } catch (IllegalArgumentException e) {
+            System.err.println("Предупреждение: поле " + fieldName + " в схеме " + schemaFilePath
+                    + " имеет неизвестный тип " + fieldType + ", значения читаются как строки");
+            return FieldType.STRING.getName();
+        }
+    }
 }
@@ -1,20 +1,32 @@
 package objectmanager.persistence;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.stereotype.Component;
 
-import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.MalformedJsonException;
 
+import objectmanager.model.DataFormat;
 import objectmanager.model.DataObject;
 import objectmanager.model.DataTable;
+import objectmanager.model.StorageType;
 import objectmanager.model.TableSchema;
 
 /**
@@ -23,34 +35,111 @@ import objectmanager.model.TableSchema;
 @Component
 public class TableLoader {
 
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_REPORTED_ROWS = 10;
+
+    /**
+     * Загружает данные таблицы и воспроизводит поверх них сегменты журнала
+     * предзаписи таблицы из walDirectory в порядке записи
+     */
+    public Optional<DataTable> loadData(Path dataDirectory, Path walDirectory, TableSchema schema) {
+        try {
+            recoverCompaction(dataDirectory, walDirectory, schema);
+        } catch (IOException e) {
+            System.err.println("Ошибка восстановления уплотнения таблицы " + schema.getTableName() + ": "
+                    + e.getMessage());
+        }
+        Optional<DataTable> table = loadData(dataDirectory, schema);
+        table.ifPresent(dataTable -> {
+            try {
+                for (Path segment : WriteAheadLog.segments(walDirectory, schema.getTableName())) {
+                    replayLog(dataTable, segment);
+                }
+            } catch (IOException e) {
+                System.err.println("Ошибка чтения журнала таблицы " + schema.getTableName() + ": " + e.getMessage());
+            }
+        });
+        return table;
+    }
+
+    /**
+     * @return файл, в который сохраняется уплотненная таблица до замены им
+     * файла данных
+     */
+    public static Path compactedFilePath(Path dataDirectory, TableSchema schema) {
+        return dataDirectory.resolve(schema.getTableName() + ".compacted" + schema.getDataFormat().getExtension());
+    }
+
+    /**
+     * Завершает уплотнение, прерванное сбоем. Перед сохранением уплотненного
+     * файла журнал переключается на новый сегмент, поэтому закрытые сегменты
+     * ссылаются на прежнюю нумерацию строк и уже учтены в файле, а текущий
+     * сегмент содержит только изменения после уплотнения. При наличии файла
+     * закрытые сегменты отбрасываются, файл заменяет файл данных, а текущий
+     * сегмент воспроизводится поверх него
+     */
+    private void recoverCompaction(Path dataDirectory, Path walDirectory, TableSchema schema) throws IOException {
+        Path compacted = compactedFilePath(dataDirectory, schema);
+        if (!Files.exists(compacted)) {
+            return;
+        }
+        Path current = walDirectory.resolve(schema.getTableName() + WriteAheadLog.FILE_EXTENSION);
+        for (Path segment : WriteAheadLog.segments(walDirectory, schema.getTableName())) {
+            if (!segment.equals(current)) {
+                Files.delete(segment);
+            }
+        }
+        Files.move(compacted, dataDirectory.resolve(schema.getTableName() + schema.getDataFormat().getExtension()),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
     public Optional<DataTable> loadData(Path dataDirectory, TableSchema schema) {
         String tableName = schema.getTableName();
-        Path dataFilePath = dataDirectory.resolve(tableName + ".json");
+        Path dataFilePath = dataDirectory.resolve(tableName + schema.getDataFormat().getExtension());
+
+        if (schema.getStorageType() == StorageType.MAPPED) {
+            return loadMapped(dataFilePath, schema);
+        }
 
         if (!Files.exists(dataFilePath) || !Files.isRegularFile(dataFilePath)) {
             return Optional.of(new DataTable(schema));
         }
 
-        try {
-            String jsonContent = Files.readString(dataFilePath);
-            JsonArray jsonArray = JsonParser.parseString(jsonContent).getAsJsonArray();
+        if (schema.getDataFormat() == DataFormat.BINARY) {
+            try (InputStream input = openData(dataFilePath)) {
+                return Optional.of(BinaryTableFormat.read(input, schema));
+            } catch (IOException e) {
+                System.err.println("Ошибка чтения файла данных " + dataFilePath + ": " + e.getMessage());
+                return Optional.empty();
+            } catch (Exception e) {
+                System.err.println("Ошибка при разборе файла данных " + dataFilePath + ": " + e.getMessage());
+                return Optional.empty();
+            }
+        }
 
+        try (JsonReader reader = new JsonReader(new BufferedReader(
+                new InputStreamReader(openData(dataFilePath), StandardCharsets.UTF_8), BUFFER_SIZE))) {
             DataTable dataTable = new DataTable(schema);
-            List<String> fieldNames = schema.getFieldNames();
-
-            for (JsonElement element : jsonArray) {
-                JsonObject jsonObject = element.getAsJsonObject();
-                DataObject dataObject = new DataObject();
 
-                for (String fieldName : fieldNames) {
-                    String value = null;
-                    if (jsonObject.has(fieldName) && !jsonObject.get(fieldName).isJsonNull()) {
-                        value = jsonObject.get(fieldName).getAsString();
+            reader.beginArray();
+            int invalidRows = 0;
+            while (reader.hasNext()) {
+                DataObject dataObject = readDataObject(reader, schema);
+                try {
+                    dataTable.addDataObject(dataObject);
+                } catch (IllegalArgumentException e) {
+                    List<String> invalidFields = clearInvalidValues(dataObject, schema);
+                    if (++invalidRows <= MAX_REPORTED_ROWS) {
+                        System.err.println("Строка " + (dataTable.getRowCount() + 1) + " файла " + dataFilePath
+                                + ": значения полей " + invalidFields + " не соответствуют типу и загружены как null");
                     }
-                    dataObject.setValue(fieldName, value);
+                    dataTable.addDataObject(dataObject);
                 }
-
-                dataTable.addDataObject(dataObject);
+            }
+            reader.endArray();
+            if (invalidRows > MAX_REPORTED_ROWS) {
+                System.err.println("Всего строк файла " + dataFilePath + " со значениями, загруженными как null: "
+                        + invalidRows);
             }
 
             return Optional.of(dataTable);
@@ -63,4 +152,211 @@ public class TableLoader {
             return Optional.empty();
         }
     }
+
+    /**
+     * Открывает файл данных; сжатый файл распознается по сигнатуре независимо
+     * от текущего значения сжатия в схеме
+     */
+    private InputStream openData(Path dataFilePath) throws IOException {
+        InputStream input = new BufferedInputStream(Files.newInputStream(dataFilePath), BUFFER_SIZE);
+        try {
+            return BlockCompressedInputStream.isCompressed(input) ? new BlockCompressedInputStream(input) : input;
+        } catch (IOException e) {
+            input.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Отображает двоичный файл данных в память вместо чтения строк в кучу
+     */
+    private Optional<DataTable> loadMapped(Path dataFilePath, TableSchema schema) {
+        try {
+            return Optional.of(new DataTable(schema, MappedTableStorage.open(dataFilePath, schema)));
+        } catch (IOException e) {
+            System.err.println("Ошибка отображения файла данных " + dataFilePath + ": " + e.getMessage());
+            return Optional.empty();
+        } catch (Exception e) {
+            System.err.println("Ошибка при разборе файла данных " + dataFilePath + ": " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Читает очередной объект массива данных. Строки строятся по мере чтения
+     * файла, без построения дерева JSON целиком
+     */
+    private DataObject readDataObject(JsonReader reader, TableSchema schema) throws IOException {
+        DataObject dataObject = new DataObject();
+        for (String fieldName : schema.getFieldNames()) {
+            dataObject.setValue(fieldName, null);
+        }
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String fieldName = reader.nextName();
+            if (!schema.getFields().containsKey(fieldName)) {
+                reader.skipValue();
+                continue;
+            }
+            dataObject.setValue(fieldName, readValue(reader));
+        }
+        reader.endObject();
+        return dataObject;
+    }
+
+    /**
+     * Данные, сохраненные до проверки типов полей, могут содержать значения,
+     * не соответствующие типу поля (например, "" или "n/a" в поле int).
+     * Такие значения заменяются на null, чтобы не потерять таблицу целиком
+     *
+     * @return имена полей, значения которых заменены
+     */
+    private static List<String> clearInvalidValues(DataObject dataObject, TableSchema schema) {
+        List<String> invalidFields = new ArrayList<>();
+        List<String> fieldNames = schema.getFieldNames();
+        for (int i = 0; i < fieldNames.size(); i++) {
+            String fieldName = fieldNames.get(i);
+            try {
+                schema.getDataType(i).parse(dataObject.getValue(fieldName));
+            } catch (IllegalArgumentException e) {
+                dataObject.setValue(fieldName, null);
+                invalidFields.add(fieldName);
+            }
+        }
+        return invalidFields;
+    }
+
+    private String readValue(JsonReader reader) throws IOException {
+        return switch (reader.peek()) {
+            case NULL -> {
+                reader.nextNull();
+                yield null;
+            }
+            case BOOLEAN -> String.valueOf(reader.nextBoolean());
+            case STRING, NUMBER -> reader.nextString();
+            default -> throw new MalformedJsonException("Ожидалось простое значение в " + reader.getPath());
+        };
+    }
+
+    /**
+     * Воспроизводит журнал предзаписи. Записи о строках, которые уже есть в
+     * таблице (сохранены в файл данных до очистки журнала), пропускаются;
+     * удаление уже удаленной строки ничего не меняет. Вместо вставки, которую
+     * не удалось применить, добавляется удаленная пустая строка, чтобы номера
+     * строк следующих записей совпадали с номерами строк таблицы.
+     * Недописанная последняя запись (сбой во время записи), как и любая
+     * запись неверного вида, отбрасывается вместе с остатком файла
+     *
+     * @return количество примененных записей
+     */
+    public int replayLog(DataTable table, Path walFilePath) {
+        if (!Files.isRegularFile(walFilePath)) {
+            return 0;
+        }
+
+        List<String> fieldNames = table.getSchema().getFieldNames();
+        int applied = 0;
+        long validLength = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(walFilePath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                LogRecord record;
+                try {
+                    record = parseLogRecord(line, fieldNames);
+                } catch (Exception e) {
+                    System.err.println("Журнал " + walFilePath + " поврежден после " + validLength
+                            + " байт, остаток отброшен: " + e.getMessage());
+                    break;
+                }
+                validLength += line.getBytes(StandardCharsets.UTF_8).length + 1;
+
+                int row = record.row();
+                if (record.dataObject() == null) {
+                    applied += table.deleteRows(new int[]{row}).length;
+                    continue;
+                }
+                if (row < table.getRowCount()) {
+                    continue;
+                }
+                while (table.getRowCount() < row) {
+                    // Пропуск в нумерации журнала (запись потеряна)
+                    addPlaceholder(table);
+                }
+
+                try {
+                    table.addDataObject(record.dataObject());
+                    applied++;
+                } catch (RuntimeException e) {
+                    addPlaceholder(table);
+                    System.err.println("Пропущена запись журнала " + walFilePath + " для строки " + row + ": " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Ошибка чтения журнала " + walFilePath + ": " + e.getMessage());
+            return applied;
+        }
+
+        try {
+            if (Files.size(walFilePath) > validLength) {
+                try (FileChannel channel = FileChannel.open(walFilePath, StandardOpenOption.WRITE)) {
+                    channel.truncate(validLength);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Не удалось отбросить поврежденный хвост журнала " + walFilePath + ": " + e.getMessage());
+        }
+        return applied;
+    }
+
+    /**
+     * Разбирает запись журнала и проверяет ее вид: номер строки, операцию и
+     * для вставки простые значения полей
+     *
+     * @throws IllegalArgumentException если запись не соответствует формату
+     * журнала
+     */
+    private static LogRecord parseLogRecord(String line, List<String> fieldNames) {
+        JsonObject record = JsonParser.parseString(line).getAsJsonObject();
+        JsonElement row = record.get("row");
+        if (row == null || !row.isJsonPrimitive() || !row.getAsJsonPrimitive().isNumber()) {
+            throw new IllegalArgumentException("запись без номера строки");
+        }
+        String op = record.has("op") ? record.get("op").getAsString() : "insert";
+        if (op.equals("delete")) {
+            return new LogRecord(row.getAsInt(), null);
+        }
+        if (!op.equals("insert")) {
+            throw new IllegalArgumentException("неизвестная операция " + op);
+        }
+        JsonElement values = record.get("values");
+        if (values == null || !values.isJsonObject()) {
+            throw new IllegalArgumentException("вставка без значений полей");
+        }
+        DataObject dataObject = new DataObject();
+        for (String fieldName : fieldNames) {
+            JsonElement value = values.getAsJsonObject().get(fieldName);
+            if (value != null && !value.isJsonNull() && !value.isJsonPrimitive()) {
+                throw new IllegalArgumentException("значение поля " + fieldName + " не является простым значением");
+            }
+            dataObject.setValue(fieldName, value == null || value.isJsonNull() ? null : value.getAsString());
+        }
+        return new LogRecord(row.getAsInt(), dataObject);
+    }
+
+    /**
+     * Запись журнала: вставка строки со значениями полей или удаление строки,
+     * если значений нет
+     */
+    private record LogRecord(int row, DataObject dataObject) {
+    }
+
+    /**
+     * Занимает номер строки удаленной строкой из пустых значений
+     */
+    private static void addPlaceholder(DataTable table) {
+        int row = table.addRow(new Object[table.getSchema().getFieldNames().size()]);
+        table.deleteRows(new int[]{row});
+    }
 }
@@ -0,0 +1,316 @@
+package objectmanager.persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import objectmanager.model.DataObject;
+import objectmanager.model.DataTable;
+import objectmanager.model.TableSchema;
+
+/**
+ * Журнал предзаписи таблицы: каждая вставка и удаление дописываются в конец
+ * файла отдельной JSON-строкой, поэтому стоимость сохранения пропорциональна объему
+ * новых данных, а не размеру таблицы. Журнал воспроизводится при загрузке
+ * таблицы (см. {@link TableLoader}).
+ * <p>
+ * Журнал состоит из сегментов: записи идут в текущий сегмент
+ * {@code <таблица>.wal}, а при контрольной точке он переименовывается в
+ * {@code <таблица>.wal.<номер>} и начинается новый. Закрытые сегменты
+ * удаляются, когда их строки сохранены в файл данных
+ */
+public class WriteAheadLog implements AutoCloseable {
+
+    public static final String FILE_EXTENSION = ".wal";
+
+    private final Path walDirectory;
+    private final String tableName;
+    private final Path filePath;
+    private final FsyncPolicy fsyncPolicy;
+    private FileChannel channel;
+    private long lastSegment;
+    private boolean unsynced;
+
+    public WriteAheadLog(Path walDirectory, String tableName, FsyncPolicy fsyncPolicy) throws IOException {
+        this.walDirectory = walDirectory;
+        this.tableName = tableName;
+        this.filePath = walDirectory.resolve(tableName + FILE_EXTENSION);
+        this.fsyncPolicy = fsyncPolicy;
+        this.channel = open(filePath);
+        List<Path> segments = segments(walDirectory, tableName);
+        this.lastSegment = segments.size() > 1 ? segmentNumber(segments.get(segments.size() - 2), tableName) : 0;
+    }
+
+    private static FileChannel open(Path filePath) throws IOException {
+        return FileChannel.open(filePath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    public Path getFilePath() {
+        return filePath;
+    }
+
+    /**
+     * @return существующие сегменты журнала таблицы в порядке записи:
+     * закрытые по возрастанию номера, затем текущий
+     */
+    public static List<Path> segments(Path walDirectory, String tableName) throws IOException {
+        String prefix = tableName + FILE_EXTENSION + ".";
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(walDirectory)) {
+            segments = files.filter(file -> {
+                String fileName = file.getFileName().toString();
+                return fileName.startsWith(prefix) && fileName.length() > prefix.length()
+                        && fileName.substring(prefix.length()).chars().allMatch(Character::isDigit);
+            })
+                    .sorted(Comparator.comparingLong(file -> segmentNumber(file, tableName)))
+                    .collect(Collectors.toCollection(ArrayList::new));
+        }
+        Path current = walDirectory.resolve(tableName + FILE_EXTENSION);
+        if (Files.exists(current)) {
+            segments.add(current);
+        }
+        return segments;
+    }
+
+    private static long segmentNumber(Path segment, String tableName) {
+        String fileName = segment.getFileName().toString();
+        return Long.parseLong(fileName.substring(tableName.length() + FILE_EXTENSION.length() + 1));
+    }
+
+    /**
+     * Записывает вставку строки с номером row. Номер позволяет при
+     * воспроизведении пропустить строки, уже попавшие в файл данных
+     */
+    public synchronized void appendInsert(int row, DataObject dataObject, List<String> fieldNames) throws IOException {
+        String[] values = new String[fieldNames.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = dataObject.getValue(fieldNames.get(i));
+        }
+        StringBuilder record = new StringBuilder(64);
+        appendInsertRecord(record, row, fieldNames, values);
+        long size = channel.size();
+        try {
+            write(record.toString().getBytes(StandardCharsets.UTF_8));
+            afterWrite();
+        } catch (IOException | RuntimeException e) {
+            discardFrom(size, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Записывает вставки пакета строк с номерами начиная с firstRow. Записи
+     * формируются параллельно частями пакета, а сброс на диск по политике
+     * always выполняется один раз на весь пакет
+     *
+     * @param chunks значения полей в порядке схемы, разобранные по типам полей
+     */
+    public synchronized void appendInserts(int firstRow, List<Object[][]> chunks, TableSchema schema)
+            throws IOException {
+        int[] chunkRows = new int[chunks.size()];
+        for (int i = 0, row = firstRow; i < chunks.size(); i++) {
+            chunkRows[i] = row;
+            row += chunks.get(i).length;
+        }
+        int window = Runtime.getRuntime().availableProcessors() * 2;
+        long size = channel.size();
+        try {
+            for (int from = 0; from < chunks.size(); from += window) {
+                List<byte[]> records = IntStream.range(from, Math.min(from + window, chunks.size())).parallel()
+                        .mapToObj(i -> insertRecords(chunkRows[i], chunks.get(i), schema))
+                        .collect(Collectors.toList());
+                for (byte[] chunkRecords : records) {
+                    write(chunkRecords);
+                }
+            }
+            afterWrite();
+        } catch (IOException | RuntimeException e) {
+            discardFrom(size, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Записывает удаление строк с указанными номерами. Удаление идемпотентно,
+     * поэтому повторное воспроизведение записи безопасно
+     */
+    public synchronized void appendDeletes(int[] rows) throws IOException {
+        StringBuilder records = new StringBuilder(rows.length * 28);
+        appendDeleteRecords(records, rows);
+        long size = channel.size();
+        try {
+            write(records.toString().getBytes(StandardCharsets.UTF_8));
+            afterWrite();
+        } catch (IOException | RuntimeException e) {
+            discardFrom(size, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Записывает изменение строк: удаление старых версий и вставку новых
+     * одним сбросом на диск
+     */
+    public synchronized void appendUpdates(DataTable.UpdatedRows updated, TableSchema schema) throws IOException {
+        StringBuilder records = new StringBuilder(updated.oldRows().length * 28);
+        appendDeleteRecords(records, updated.oldRows());
+        long size = channel.size();
+        try {
+            write(records.toString().getBytes(StandardCharsets.UTF_8));
+            write(insertRecords(updated.firstRow(), updated.newRows(), schema));
+            afterWrite();
+        } catch (IOException | RuntimeException e) {
+            discardFrom(size, e);
+            throw e;
+        }
+    }
+
+    private static void appendDeleteRecords(StringBuilder records, int[] rows) {
+        for (int row : rows) {
+            records.append("{\"op\":\"delete\",\"row\":").append(row).append("}\n");
+        }
+    }
+
+    private static byte[] insertRecords(int firstRow, Object[][] rows, TableSchema schema) {
+        List<String> fieldNames = schema.getFieldNames();
+        String[] values = new String[fieldNames.size()];
+        StringBuilder records = new StringBuilder(rows.length * 64);
+        for (int i = 0; i < rows.length; i++) {
+            for (int field = 0; field < values.length; field++) {
+                values[field] = schema.getDataType(field).format(rows[i][field]);
+            }
+            appendInsertRecord(records, firstRow + i, fieldNames, values);
+        }
+        return records.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void appendInsertRecord(StringBuilder record, int row, List<String> fieldNames, String[] values) {
+        record.append("{\"op\":\"insert\",\"row\":").append(row).append(",\"values\":{");
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                record.append(',');
+            }
+            JsonText.appendString(record, fieldNames.get(i));
+            record.append(':');
+            if (values[i] == null) {
+                record.append("null");
+            } else {
+                JsonText.appendString(record, values[i]);
+            }
+        }
+        record.append("}}\n");
+    }
+
+    private void write(byte[] records) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(records);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Отрезает записи, добавленные операцией, которая завершилась ошибкой:
+     * операция не применяется к таблице, поэтому не должна остаться и в
+     * журнале. Ошибка самого отрезания добавляется к исходной ошибке
+     */
+    private void discardFrom(long size, Exception e) {
+        try {
+            channel.truncate(size);
+        } catch (IOException suppressed) {
+            e.addSuppressed(suppressed);
+        }
+    }
+
+    private void afterWrite() throws IOException {
+        if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+            channel.force(false);
+        } else {
+            unsynced = true;
+        }
+    }
+
+    /**
+     * Сбрасывает на диск записи, добавленные после предыдущего сброса
+     */
+    public synchronized void sync() throws IOException {
+        if (unsynced && channel.isOpen()) {
+            channel.force(false);
+            unsynced = false;
+        }
+    }
+
+    /**
+     * Закрывает текущий сегмент и начинает новый. Вызывается вместе со снятием
+     * снимка таблицы под блокировкой журнала, поэтому все строки закрытых
+     * сегментов входят в снимок
+     *
+     * @return номер последнего закрытого сегмента; сегменты с номерами не больше
+     * него можно удалить после сохранения снимка
+     */
+    public synchronized long rotate() throws IOException {
+        if (channel.size() == 0) {
+            return lastSegment;
+        }
+        channel.force(false);
+        channel.close();
+        long segment = lastSegment + 1;
+        Files.move(filePath, walDirectory.resolve(tableName + FILE_EXTENSION + "." + segment),
+                StandardCopyOption.ATOMIC_MOVE);
+        lastSegment = segment;
+        channel = open(filePath);
+        unsynced = false;
+        return segment;
+    }
+
+    /**
+     * Удаляет закрытые сегменты с номерами не больше lastSegment
+     */
+    public synchronized void deleteSegments(long lastSegment) throws IOException {
+        for (Path segment : segments(walDirectory, tableName)) {
+            if (!segment.equals(filePath) && segmentNumber(segment, tableName) <= lastSegment) {
+                Files.deleteIfExists(segment);
+            }
+        }
+    }
+
+    /**
+     * Очищает журнал целиком. Вызывается после того, как все записанные в
+     * журнал строки сохранены в файл данных
+     */
+    public synchronized void truncate() throws IOException {
+        deleteSegments(Long.MAX_VALUE);
+        channel.truncate(0);
+        channel.force(true);
+        unsynced = false;
+    }
+
+    /**
+     * Закрывает журнал и удаляет все его сегменты
+     */
+    public synchronized void delete() throws IOException {
+        close();
+        for (Path segment : segments(walDirectory, tableName)) {
+            Files.deleteIfExists(segment);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel.isOpen()) {
+            sync();
+            channel.close();
+        }
+    }
+}
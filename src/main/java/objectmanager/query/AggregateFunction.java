@@ -0,0 +1,38 @@
+package objectmanager.query;
+
+import java.util.Locale;
+
+/**
+ * Агрегатная функция в списке выбираемых значений
+ */
+public enum AggregateFunction {
+
+    COUNT("count"),
+    SUM("sum"),
+    AVG("avg"),
+    MIN("min"),
+    MAX("max");
+
+    private final String name;
+
+    AggregateFunction(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return функция с указанным именем или null, если такой нет
+     */
+    public static AggregateFunction fromName(String name) {
+        String normalized = name.toLowerCase(Locale.ROOT);
+        for (AggregateFunction function : values()) {
+            if (function.name.equals(normalized)) {
+                return function;
+            }
+        }
+        return null;
+    }
+}
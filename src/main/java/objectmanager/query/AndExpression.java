@@ -0,0 +1,33 @@
+package objectmanager.query;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+import objectmanager.model.TableSnapshot;
+
+/**
+ * Конъюнкция условий; правое условие проверяется только для строк,
+ * удовлетворяющих левому
+ */
+public record AndExpression(Expression left, Expression right) implements Expression {
+
+    @Override
+    public IntPredicate compile(TableSnapshot snapshot) {
+        IntPredicate leftPredicate = left.compile(snapshot);
+        IntPredicate rightPredicate = right.compile(snapshot);
+        return row -> leftPredicate.test(row) && rightPredicate.test(row);
+    }
+
+    @Override
+    public Set<String> fieldNames() {
+        Set<String> fieldNames = new HashSet<>(left.fieldNames());
+        fieldNames.addAll(right.fieldNames());
+        return fieldNames;
+    }
+
+    @Override
+    public String toString() {
+        return left + " and " + right;
+    }
+}
@@ -0,0 +1,45 @@
+package objectmanager.query;
+
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+import objectmanager.model.ComparisonOperator;
+import objectmanager.model.DataTable;
+import objectmanager.model.TableSnapshot;
+import objectmanager.model.index.IndexType;
+import objectmanager.model.index.TableIndex;
+import objectmanager.model.storage.Column;
+
+/**
+ * Попадание значения поля в диапазон, включая границы
+ */
+public record BetweenExpression(String fieldName, String from, String to) implements Expression {
+
+    @Override
+    public IntPredicate compile(TableSnapshot snapshot) {
+        Column column = Columns.resolve(snapshot, fieldName);
+        IntPredicate lower = column.matches(ComparisonOperator.GE, column.getType().parse(from));
+        IntPredicate upper = column.matches(ComparisonOperator.LE, column.getType().parse(to));
+        return row -> lower.test(row) && upper.test(row);
+    }
+
+    @Override
+    public int[] findByIndex(DataTable table, TableSnapshot snapshot) {
+        TableIndex index = table.getIndex(fieldName);
+        if (index == null || index.getType() != IndexType.ORDERED) {
+            return null;
+        }
+        return table.findRangeRowIds(snapshot, fieldName, Columns.parse(table.getSchema(), fieldName, from), true,
+                Columns.parse(table.getSchema(), fieldName, to), true);
+    }
+
+    @Override
+    public Set<String> fieldNames() {
+        return Set.of(fieldName);
+    }
+
+    @Override
+    public String toString() {
+        return fieldName + " between " + from + " and " + to;
+    }
+}
@@ -0,0 +1,56 @@
+package objectmanager.query;
+
+import objectmanager.model.TableSchema;
+import objectmanager.model.TableSnapshot;
+import objectmanager.model.storage.Column;
+
+/**
+ * Привязка полей и констант условия к колонкам снимка
+ */
+final class Columns {
+
+    private Columns() {
+    }
+
+    /**
+     * Поле можно указать как таблица.поле. Поля результата соединения таблиц
+     * называются по этой схеме, а поле без имени таблицы находится, если оно
+     * однозначно
+     */
+    static Column resolve(TableSnapshot snapshot, String fieldName) {
+        Column column = snapshot.getColumn(fieldName);
+        if (column != null) {
+            return column;
+        }
+        int dot = fieldName.indexOf('.');
+        if (dot > 0 && fieldName.substring(0, dot).equals(snapshot.getSchema().getTableName())) {
+            column = snapshot.getColumn(fieldName.substring(dot + 1));
+            if (column != null) {
+                return column;
+            }
+        }
+        if (dot < 0) {
+            String qualifiedName = null;
+            for (String name : snapshot.getSchema().getFieldNames()) {
+                if (name.endsWith("." + fieldName)) {
+                    if (qualifiedName != null) {
+                        throw new IllegalArgumentException("Неоднозначное поле " + fieldName
+                                + ", укажите таблицу: " + qualifiedName + " или " + name);
+                    }
+                    qualifiedName = name;
+                }
+            }
+            if (qualifiedName != null) {
+                return snapshot.getColumn(qualifiedName);
+            }
+        }
+        throw new IllegalArgumentException("Поле не найдено: " + fieldName);
+    }
+
+    static Object parse(TableSchema schema, String fieldName, String value) {
+        if (!schema.getFieldNames().contains(fieldName)) {
+            throw new IllegalArgumentException("Поле не найдено: " + fieldName);
+        }
+        return schema.getDataType(fieldName).parse(value);
+    }
+}
@@ -0,0 +1,44 @@
+package objectmanager.query;
+
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+import objectmanager.model.ComparisonOperator;
+import objectmanager.model.DataTable;
+import objectmanager.model.TableSnapshot;
+import objectmanager.model.index.IndexType;
+import objectmanager.model.index.TableIndex;
+import objectmanager.model.storage.Column;
+
+/**
+ * Сравнение значения поля с константой; пустые значения не подходят
+ */
+public record ComparisonExpression(String fieldName, ComparisonOperator operator, String value)
+        implements Expression {
+
+    @Override
+    public IntPredicate compile(TableSnapshot snapshot) {
+        Column column = Columns.resolve(snapshot, fieldName);
+        return column.matches(operator, column.getType().parse(value));
+    }
+
+    @Override
+    public int[] findByIndex(DataTable table, TableSnapshot snapshot) {
+        TableIndex index = table.getIndex(fieldName);
+        if (index == null || operator == ComparisonOperator.NE
+                || (operator != ComparisonOperator.EQ && index.getType() != IndexType.ORDERED)) {
+            return null;
+        }
+        return table.findRowIds(snapshot, fieldName, operator, Columns.parse(table.getSchema(), fieldName, value));
+    }
+
+    @Override
+    public Set<String> fieldNames() {
+        return Set.of(fieldName);
+    }
+
+    @Override
+    public String toString() {
+        return fieldName + " " + operator.getSymbol() + " " + value;
+    }
+}
@@ -0,0 +1,39 @@
+package objectmanager.query;
+
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+import objectmanager.model.DataTable;
+import objectmanager.model.TableSnapshot;
+
+/**
+ * Узел дерева условия WHERE (паттерн Interpreter). Условие разбирается один
+ * раз (см. {@link ExpressionParser}), а затем компилируется в проверку номера
+ * строки, привязанную к колонкам снимка, поэтому при просмотре строк не
+ * выполняется ни разбор значений, ни поиск полей по имени
+ */
+public interface Expression {
+
+    /**
+     * @return условие на номер строки снимка
+     * @throws IllegalArgumentException если поле отсутствует в схеме или
+     * константа не соответствует типу поля
+     */
+    IntPredicate compile(TableSnapshot snapshot);
+
+    /**
+     * @return имена полей, от которых зависит условие
+     */
+    Set<String> fieldNames();
+
+    /**
+     * Выбирает строки снимка по индексу таблицы, если условие целиком
+     * вычисляется по нему
+     *
+     * @return номера строк в порядке добавления или null, если подходящего
+     * индекса нет
+     */
+    default int[] findByIndex(DataTable table, TableSnapshot snapshot) {
+        return null;
+    }
+}
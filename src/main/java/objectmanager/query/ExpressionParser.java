@@ -0,0 +1,286 @@
+package objectmanager.query;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import objectmanager.model.ComparisonOperator;
+
+/**
+ * Разбор условия WHERE методом рекурсивного спуска. Приоритет операций по
+ * убыванию: сравнения и предикаты, NOT, AND, OR; порядок можно изменить
+ * скобками. Поддерживаются предикаты
+ * <pre>
+ * поле =|!=|&lt;&gt;|&lt;|&lt;=|&gt;|&gt;= значение
+ * поле [not] between значение and значение
+ * поле [not] in (значение, ...)
+ * поле [not] like 'шаблон'
+ * поле is [not] null
+ * </pre>
+ * Значение - строка в одинарных или двойных кавычках либо одно или несколько
+ * слов без кавычек, которые объединяются через пробел
+ */
+public class ExpressionParser {
+
+    private static final Set<String> KEYWORDS = Set.of("and", "or", "not", "between", "in", "like", "is", "null");
+
+    private enum TokenType {
+        WORD, STRING, SYMBOL
+    }
+
+    private record Token(TokenType type, String text) {
+
+        boolean isKeyword(String keyword) {
+            return type == TokenType.WORD && text.equalsIgnoreCase(keyword);
+        }
+
+        boolean isSymbol(String symbol) {
+            return type == TokenType.SYMBOL && text.equals(symbol);
+        }
+
+        boolean isPlainWord() {
+            return type == TokenType.WORD && !KEYWORDS.contains(text.toLowerCase(Locale.ROOT));
+        }
+    }
+
+    private final List<Token> tokens;
+    private int position;
+
+    private ExpressionParser(List<Token> tokens) {
+        this.tokens = tokens;
+    }
+
+    /**
+     * @throws IllegalArgumentException если условие записано с ошибкой
+     */
+    public static Expression parse(String text) {
+        ExpressionParser parser = new ExpressionParser(tokenize(text));
+        if (parser.tokens.isEmpty()) {
+            throw new IllegalArgumentException("Пустое условие");
+        }
+        Expression expression = parser.parseOr();
+        if (parser.position < parser.tokens.size()) {
+            throw parser.error("Лишний текст в условии");
+        }
+        return expression;
+    }
+
+    /**
+     * Разбирает список присваиваний {@code поле = значение, ...} команды
+     * update. Значения записываются так же, как в условии; {@code null} без
+     * кавычек обозначает пустое значение
+     *
+     * @return значения по именам полей в порядке записи
+     * @throws IllegalArgumentException если список записан с ошибкой
+     */
+    public static Map<String, String> parseAssignments(String text) {
+        ExpressionParser parser = new ExpressionParser(tokenize(text));
+        if (parser.tokens.isEmpty()) {
+            throw new IllegalArgumentException("Пустой список присваиваний");
+        }
+        Map<String, String> assignments = new LinkedHashMap<>();
+        do {
+            Token field = parser.next("Ожидается имя поля");
+            if (!field.isPlainWord()) {
+                throw parser.error("Ожидается имя поля", field);
+            }
+            parser.expectSymbol("=");
+            String value = parser.acceptKeyword("null") ? null : parser.parseValue();
+            if (assignments.containsKey(field.text())) {
+                throw new IllegalArgumentException("Поле '" + field.text() + "' указано несколько раз");
+            }
+            assignments.put(field.text(), value);
+        } while (parser.acceptSymbol(","));
+        if (parser.position < parser.tokens.size()) {
+            throw parser.error("Ожидается ','");
+        }
+        return assignments;
+    }
+
+    private Expression parseOr() {
+        Expression expression = parseAnd();
+        while (acceptKeyword("or")) {
+            expression = new OrExpression(expression, parseAnd());
+        }
+        return expression;
+    }
+
+    private Expression parseAnd() {
+        Expression expression = parseNot();
+        while (acceptKeyword("and")) {
+            expression = new AndExpression(expression, parseNot());
+        }
+        return expression;
+    }
+
+    private Expression parseNot() {
+        if (acceptKeyword("not")) {
+            return new NotExpression(parseNot());
+        }
+        if (acceptSymbol("(")) {
+            Expression expression = parseOr();
+            expectSymbol(")");
+            return expression;
+        }
+        return parsePredicate();
+    }
+
+    private Expression parsePredicate() {
+        Token field = next("Ожидается имя поля");
+        if (!field.isPlainWord()) {
+            throw error("Ожидается имя поля", field);
+        }
+        String fieldName = field.text();
+
+        if (acceptKeyword("is")) {
+            boolean negated = acceptKeyword("not");
+            expectKeyword("null");
+            Expression expression = new IsNullExpression(fieldName);
+            return negated ? new NotExpression(expression) : expression;
+        }
+
+        boolean negated = acceptKeyword("not");
+        Expression expression;
+        if (acceptKeyword("between")) {
+            String from = parseValue();
+            expectKeyword("and");
+            expression = new BetweenExpression(fieldName, from, parseValue());
+        } else if (acceptKeyword("in")) {
+            expectSymbol("(");
+            List<String> values = new ArrayList<>();
+            do {
+                values.add(parseValue());
+            } while (acceptSymbol(","));
+            expectSymbol(")");
+            expression = new InExpression(fieldName, values);
+        } else if (acceptKeyword("like")) {
+            expression = new LikeExpression(fieldName, parseValue());
+        } else if (!negated) {
+            Token operatorToken = next("Ожидается оператор сравнения");
+            ComparisonOperator operator = operatorToken.type() == TokenType.SYMBOL
+                    ? ComparisonOperator.fromSymbol(operatorToken.text()) : null;
+            if (operator == null) {
+                throw error("Неизвестный оператор", operatorToken);
+            }
+            return new ComparisonExpression(fieldName, operator, parseValue());
+        } else {
+            throw error("Ожидается between, in или like");
+        }
+        return negated ? new NotExpression(expression) : expression;
+    }
+
+    private String parseValue() {
+        Token token = next("Ожидается значение");
+        if (token.type() == TokenType.STRING) {
+            return token.text();
+        }
+        if (!token.isPlainWord()) {
+            throw error("Ожидается значение", token);
+        }
+        StringBuilder value = new StringBuilder(token.text());
+        while (position < tokens.size() && tokens.get(position).isPlainWord()) {
+            value.append(' ').append(tokens.get(position++).text());
+        }
+        return value.toString();
+    }
+
+    private Token next(String expected) {
+        if (position >= tokens.size()) {
+            throw new IllegalArgumentException(expected + " в конце условия");
+        }
+        return tokens.get(position++);
+    }
+
+    private boolean acceptKeyword(String keyword) {
+        if (position < tokens.size() && tokens.get(position).isKeyword(keyword)) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean acceptSymbol(String symbol) {
+        if (position < tokens.size() && tokens.get(position).isSymbol(symbol)) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expectKeyword(String keyword) {
+        if (!acceptKeyword(keyword)) {
+            throw error("Ожидается " + keyword);
+        }
+    }
+
+    private void expectSymbol(String symbol) {
+        if (!acceptSymbol(symbol)) {
+            throw error("Ожидается '" + symbol + "'");
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        if (position >= tokens.size()) {
+            return new IllegalArgumentException(message + " в конце условия");
+        }
+        return error(message, tokens.get(position));
+    }
+
+    private IllegalArgumentException error(String message, Token token) {
+        return new IllegalArgumentException(message + ", получено '" + token.text() + "'");
+    }
+
+    private static List<Token> tokenize(String text) {
+        List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '\'' || c == '"') {
+                StringBuilder value = new StringBuilder();
+                int j = i + 1;
+                while (true) {
+                    if (j >= text.length()) {
+                        throw new IllegalArgumentException("Незакрытая кавычка в условии");
+                    }
+                    char d = text.charAt(j++);
+                    if (d == c) {
+                        // Удвоенная кавычка внутри строки обозначает саму кавычку
+                        if (j < text.length() && text.charAt(j) == c) {
+                            value.append(c);
+                            j++;
+                            continue;
+                        }
+                        break;
+                    }
+                    value.append(d);
+                }
+                tokens.add(new Token(TokenType.STRING, value.toString()));
+                i = j;
+            } else if (c == '(' || c == ')' || c == ',') {
+                tokens.add(new Token(TokenType.SYMBOL, String.valueOf(c)));
+                i++;
+            } else if (c == '=' || c == '!' || c == '<' || c == '>') {
+                int j = i + 1;
+                if (j < text.length() && (text.charAt(j) == '=' || (c == '<' && text.charAt(j) == '>'))) {
+                    j++;
+                }
+                tokens.add(new Token(TokenType.SYMBOL, text.substring(i, j)));
+                i = j;
+            } else {
+                int j = i;
+                while (j < text.length() && !Character.isWhitespace(text.charAt(j))
+                        && "'\"(),=!<>".indexOf(text.charAt(j)) < 0) {
+                    j++;
+                }
+                tokens.add(new Token(TokenType.WORD, text.substring(i, j)));
+                i = j;
+            }
+        }
+        return tokens;
+    }
+}
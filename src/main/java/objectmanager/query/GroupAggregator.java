@@ -0,0 +1,413 @@
+package objectmanager.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntPredicate;
+
+import objectmanager.model.FieldType;
+import objectmanager.model.TableSnapshot;
+import objectmanager.model.storage.Column;
+
+/**
+ * Вычисление агрегатных функций по группам строк снимка на пуле fork-join.
+ * Диапазон строк-кандидатов делится пополам, пока части не станут меньше
+ * {@link #CHUNK_SIZE}; каждая часть собирает собственную хеш-таблицу групп
+ * без синхронизации, а при объединении задач таблицы сливаются попарно
+ */
+final class GroupAggregator {
+
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    /**
+     * Ключ единственной группы запроса без group by
+     */
+    private static final Object NO_GROUP = new Object();
+
+    private final List<SelectItem> items;
+    private final List<String> groupBy;
+    private final Column[] groupColumns;
+    private final List<SelectItem> aggregates = new ArrayList<>();
+    private final Column[] aggregateColumns;
+    private final FieldType[] types;
+
+    /**
+     * @throws IllegalArgumentException если поле не найдено, выбираемое поле
+     * не входит в группировку или функция не применима к типу поля
+     */
+    GroupAggregator(TableSnapshot snapshot, List<SelectItem> items, List<String> groupBy) {
+        this.items = items;
+        this.groupBy = groupBy;
+        this.groupColumns = new Column[groupBy.size()];
+        for (int i = 0; i < groupColumns.length; i++) {
+            groupColumns[i] = Columns.resolve(snapshot, groupBy.get(i));
+        }
+
+        this.types = new FieldType[items.size()];
+        List<Column> columns = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            SelectItem item = items.get(i);
+            if (!item.isAggregate()) {
+                int group = groupBy.indexOf(item.fieldName());
+                if (group < 0) {
+                    throw new IllegalArgumentException("Поле " + item.fieldName()
+                            + " должно входить в group by или быть аргументом агрегатной функции");
+                }
+                types[i] = groupColumns[group].getType();
+                continue;
+            }
+
+            Column column = item.fieldName() == null ? null : Columns.resolve(snapshot, item.fieldName());
+            AggregateFunction function = item.function();
+            if (function == AggregateFunction.SUM || function == AggregateFunction.AVG) {
+                FieldType type = column.getType();
+                if (type != FieldType.INT && type != FieldType.LONG && type != FieldType.DOUBLE) {
+                    throw new IllegalArgumentException("Функция " + function.getName() + " применима только к "
+                            + "числовым полям, поле " + item.fieldName() + " имеет тип " + type.getName());
+                }
+            } else if (function == AggregateFunction.MIN || function == AggregateFunction.MAX) {
+                types[i] = column.getType();
+            }
+            aggregates.add(item);
+            columns.add(column);
+        }
+        this.aggregateColumns = columns.toArray(new Column[0]);
+    }
+
+    /**
+     * @return типы колонок результата для форматирования значений; null для
+     * числовых результатов функций
+     */
+    FieldType[] getTypes() {
+        return types;
+    }
+
+    /**
+     * @param candidates номера строк-кандидатов или null для всех строк
+     * снимка
+     * @param candidateCount количество кандидатов
+     * @param condition условие на строку или null, если подходят все
+     * кандидаты
+     * @return строки результата в порядке выбираемых значений, упорядоченные
+     * по полям группировки
+     */
+    List<Object[]> aggregate(int[] candidates, int candidateCount, IntPredicate condition) {
+        Map<Object, Accumulator[]> groups = ForkJoinPool.commonPool()
+                .invoke(new AggregationTask(candidates, condition, 0, candidateCount));
+        if (groupColumns.length == 0 && groups.isEmpty()) {
+            groups.put(NO_GROUP, newAccumulators());
+        }
+
+        List<Map.Entry<Object, Accumulator[]>> entries = new ArrayList<>(groups.entrySet());
+        if (groupColumns.length > 0) {
+            entries.sort(Map.Entry.comparingByKey(groupColumns.length == 1
+                    ? GroupAggregator::compareValues : GroupAggregator::compareKeyLists));
+        }
+
+        List<Object[]> rows = new ArrayList<>(entries.size());
+        for (Map.Entry<Object, Accumulator[]> entry : entries) {
+            Object[] row = new Object[items.size()];
+            int aggregate = 0;
+            for (int i = 0; i < row.length; i++) {
+                SelectItem item = items.get(i);
+                row[i] = item.isAggregate()
+                        ? entry.getValue()[aggregate++].result()
+                        : keyPart(entry.getKey(), groupBy.indexOf(item.fieldName()));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * Сравнивает значения с учетом типа; пустое значение считается меньше
+     * любого другого
+     */
+    @SuppressWarnings("unchecked")
+    static int compareValues(Object left, Object right) {
+        if (left == null || right == null) {
+            return Boolean.compare(left != null, right != null);
+        }
+        return ((Comparable<Object>) left).compareTo(right);
+    }
+
+    private static int compareKeyLists(Object left, Object right) {
+        List<?> leftKey = (List<?>) left;
+        List<?> rightKey = (List<?>) right;
+        for (int i = 0; i < leftKey.size(); i++) {
+            int comparison = compareValues(leftKey.get(i), rightKey.get(i));
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return 0;
+    }
+
+    private Object groupKey(int row) {
+        if (groupColumns.length == 0) {
+            return NO_GROUP;
+        }
+        if (groupColumns.length == 1) {
+            return groupColumns[0].getKey(row);
+        }
+        Object[] key = new Object[groupColumns.length];
+        for (int i = 0; i < key.length; i++) {
+            key[i] = groupColumns[i].getKey(row);
+        }
+        return Arrays.asList(key);
+    }
+
+    private Object keyPart(Object key, int group) {
+        return groupColumns.length == 1 ? key : ((List<?>) key).get(group);
+    }
+
+    private Accumulator[] newAccumulators() {
+        Accumulator[] accumulators = new Accumulator[aggregates.size()];
+        for (int i = 0; i < accumulators.length; i++) {
+            Column column = aggregateColumns[i];
+            accumulators[i] = switch (aggregates.get(i).function()) {
+                case COUNT -> new CountAccumulator(column);
+                case SUM -> column.getType() == FieldType.DOUBLE
+                        ? new DoubleSumAccumulator(column) : new LongSumAccumulator(column);
+                case AVG -> new AverageAccumulator(column);
+                case MIN -> new ExtremumAccumulator(column, -1);
+                case MAX -> new ExtremumAccumulator(column, 1);
+            };
+        }
+        return accumulators;
+    }
+
+    private class AggregationTask extends RecursiveTask<Map<Object, Accumulator[]>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[] candidates;
+        private final IntPredicate condition;
+        private final int from;
+        private final int to;
+
+        AggregationTask(int[] candidates, IntPredicate condition, int from, int to) {
+            this.candidates = candidates;
+            this.condition = condition;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Map<Object, Accumulator[]> compute() {
+            if (to - from <= CHUNK_SIZE) {
+                return scan();
+            }
+            int middle = (from + to) >>> 1;
+            AggregationTask left = new AggregationTask(candidates, condition, from, middle);
+            left.fork();
+            Map<Object, Accumulator[]> right = new AggregationTask(candidates, condition, middle, to).compute();
+            return merge(left.join(), right);
+        }
+
+        private Map<Object, Accumulator[]> scan() {
+            Map<Object, Accumulator[]> groups = new HashMap<>();
+            for (int i = from; i < to; i++) {
+                int row = candidates == null ? i : candidates[i];
+                if (condition != null && !condition.test(row)) {
+                    continue;
+                }
+                Accumulator[] accumulators = groups.computeIfAbsent(groupKey(row), key -> newAccumulators());
+                for (Accumulator accumulator : accumulators) {
+                    accumulator.add(row);
+                }
+            }
+            return groups;
+        }
+
+        private Map<Object, Accumulator[]> merge(Map<Object, Accumulator[]> left, Map<Object, Accumulator[]> right) {
+            Map<Object, Accumulator[]> target = left.size() >= right.size() ? left : right;
+            Map<Object, Accumulator[]> source = target == left ? right : left;
+            source.forEach((key, accumulators) -> target.merge(key, accumulators, (existing, added) -> {
+                for (int i = 0; i < existing.length; i++) {
+                    existing[i].merge(added[i]);
+                }
+                return existing;
+            }));
+            return target;
+        }
+    }
+
+    /**
+     * Частичный результат агрегатной функции по строкам одной группы
+     */
+    private abstract static class Accumulator {
+
+        abstract void add(int row);
+
+        abstract void merge(Accumulator other);
+
+        abstract Object result();
+    }
+
+    /**
+     * count(*) или количество непустых значений поля
+     */
+    private static final class CountAccumulator extends Accumulator {
+
+        private final Column column;
+        private long count;
+
+        CountAccumulator(Column column) {
+            this.column = column;
+        }
+
+        @Override
+        void add(int row) {
+            if (column == null || !column.isNull(row)) {
+                count++;
+            }
+        }
+
+        @Override
+        void merge(Accumulator other) {
+            count += ((CountAccumulator) other).count;
+        }
+
+        @Override
+        Object result() {
+            return count;
+        }
+    }
+
+    private static final class LongSumAccumulator extends Accumulator {
+
+        private final Column column;
+        private long sum;
+        private boolean empty = true;
+
+        LongSumAccumulator(Column column) {
+            this.column = column;
+        }
+
+        @Override
+        void add(int row) {
+            if (!column.isNull(row)) {
+                sum += column.longValue(row);
+                empty = false;
+            }
+        }
+
+        @Override
+        void merge(Accumulator other) {
+            LongSumAccumulator accumulator = (LongSumAccumulator) other;
+            sum += accumulator.sum;
+            empty &= accumulator.empty;
+        }
+
+        @Override
+        Object result() {
+            return empty ? null : sum;
+        }
+    }
+
+    private static final class DoubleSumAccumulator extends Accumulator {
+
+        private final Column column;
+        private double sum;
+        private boolean empty = true;
+
+        DoubleSumAccumulator(Column column) {
+            this.column = column;
+        }
+
+        @Override
+        void add(int row) {
+            if (!column.isNull(row)) {
+                sum += column.doubleValue(row);
+                empty = false;
+            }
+        }
+
+        @Override
+        void merge(Accumulator other) {
+            DoubleSumAccumulator accumulator = (DoubleSumAccumulator) other;
+            sum += accumulator.sum;
+            empty &= accumulator.empty;
+        }
+
+        @Override
+        Object result() {
+            return empty ? null : sum;
+        }
+    }
+
+    private static final class AverageAccumulator extends Accumulator {
+
+        private final Column column;
+        private double sum;
+        private long count;
+
+        AverageAccumulator(Column column) {
+            this.column = column;
+        }
+
+        @Override
+        void add(int row) {
+            if (!column.isNull(row)) {
+                sum += column.doubleValue(row);
+                count++;
+            }
+        }
+
+        @Override
+        void merge(Accumulator other) {
+            AverageAccumulator accumulator = (AverageAccumulator) other;
+            sum += accumulator.sum;
+            count += accumulator.count;
+        }
+
+        @Override
+        Object result() {
+            return count == 0 ? null : sum / count;
+        }
+    }
+
+    /**
+     * min или max: запоминается номер строки с лучшим значением, значения
+     * сравниваются колонкой без упаковки
+     */
+    private static final class ExtremumAccumulator extends Accumulator {
+
+        private final Column column;
+        private final int sign;
+        private int best = -1;
+
+        /**
+         * @param sign -1 для минимума, 1 для максимума
+         */
+        ExtremumAccumulator(Column column, int sign) {
+            this.column = column;
+            this.sign = sign;
+        }
+
+        @Override
+        void add(int row) {
+            if (!column.isNull(row) && (best < 0 || column.compareRows(row, best) * sign > 0)) {
+                best = row;
+            }
+        }
+
+        @Override
+        void merge(Accumulator other) {
+            int row = ((ExtremumAccumulator) other).best;
+            if (row >= 0) {
+                add(row);
+            }
+        }
+
+        @Override
+        Object result() {
+            return best < 0 ? null : column.getKey(best);
+        }
+    }
+}
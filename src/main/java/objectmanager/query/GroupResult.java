@@ -0,0 +1,57 @@
+package objectmanager.query;
+
+import java.util.List;
+
+import objectmanager.model.FieldType;
+
+/**
+ * Результат запроса с агрегатными функциями: по строке на группу. Значения
+ * хранятся типизированными и форматируются при обращении
+ */
+class GroupResult implements QueryResult {
+
+    private final List<String> fieldNames;
+    private final FieldType[] types;
+    private final List<Object[]> rows;
+    private final boolean indexed;
+
+    /**
+     * @param types типы колонок для форматирования значений; null означает
+     * числовой результат функции, который форматируется как есть
+     */
+    GroupResult(List<String> fieldNames, FieldType[] types, List<Object[]> rows, boolean indexed) {
+        this.fieldNames = fieldNames;
+        this.types = types;
+        this.rows = rows;
+        this.indexed = indexed;
+    }
+
+    @Override
+    public List<String> getFieldNames() {
+        return fieldNames;
+    }
+
+    @Override
+    public int size() {
+        return rows.size();
+    }
+
+    @Override
+    public String getValue(int row, int field) {
+        Object value = rows.get(row)[field];
+        if (value == null) {
+            return null;
+        }
+        return types[field] == null ? value.toString() : types[field].format(value);
+    }
+
+    @Override
+    public boolean isIndexed() {
+        return indexed;
+    }
+
+    @Override
+    public long estimateMemoryUsage() {
+        return 64 + (long) rows.size() * (32 + 24L * fieldNames.size());
+    }
+}
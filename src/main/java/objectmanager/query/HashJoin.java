@@ -0,0 +1,276 @@
+package objectmanager.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntPredicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import objectmanager.exception.ApplicationException;
+import objectmanager.model.DataTable;
+import objectmanager.model.TableSchema;
+import objectmanager.model.TableSnapshot;
+import objectmanager.model.storage.Column;
+
+/**
+ * Соединение двух таблиц хешированием. Части условия WHERE, зависящие от
+ * полей одной таблицы, проверяются до соединения. По стороне, где осталось
+ * меньше строк, строится хеш-таблица ключ - номера строк, затем строки другой
+ * стороны параллельно ищут в ней пары. Память на хеш-таблицу и пары
+ * оценивается по ходу выполнения, и при превышении лимита соединение
+ * прерывается с ошибкой
+ */
+final class HashJoin {
+
+    /**
+     * Оценка памяти на одну строку хеш-таблицы: узел карты, упакованный ключ
+     * и номер строки
+     */
+    private static final int BUILD_ENTRY_SIZE = 64;
+
+    private static final int PROBE_CHUNK_SIZE = 1 << 16;
+
+    private final TableSnapshot left;
+    private final TableSnapshot right;
+    private final Column leftKey;
+    private final Column rightKey;
+    private final List<Expression> leftConditions = new ArrayList<>();
+    private final List<Expression> rightConditions = new ArrayList<>();
+    private Expression residualCondition;
+
+    /**
+     * @throws IllegalArgumentException если поля соединения не найдены, не
+     * относятся к разным таблицам или имеют разные типы
+     */
+    HashJoin(DataTable leftTable, DataTable rightTable, JoinClause join) {
+        if (leftTable.getSchema().getTableName().equals(rightTable.getSchema().getTableName())) {
+            throw new IllegalArgumentException("Соединение таблицы с самой собой не поддерживается");
+        }
+        this.left = leftTable.snapshot();
+        this.right = rightTable.snapshot();
+
+        boolean leftFieldOnLeft = isLeftField(join.leftField());
+        if (leftFieldOnLeft == isLeftField(join.rightField())) {
+            throw new IllegalArgumentException("Условие соединения должно связывать поля разных таблиц");
+        }
+        String leftField = leftFieldOnLeft ? join.leftField() : join.rightField();
+        String rightField = leftFieldOnLeft ? join.rightField() : join.leftField();
+        this.leftKey = Columns.resolve(left, leftField);
+        this.rightKey = Columns.resolve(right, rightField);
+        if (leftKey.getType() != rightKey.getType()) {
+            throw new IllegalArgumentException("Типы полей соединения не совпадают: " + leftField + " ("
+                    + leftKey.getType().getName() + "), " + rightField + " (" + rightKey.getType().getName() + ")");
+        }
+    }
+
+    /**
+     * Распределяет части условия, объединенные через and, по таблицам
+     *
+     * @return часть условия, которую нужно проверить на результате
+     * соединения, или null
+     */
+    Expression pushDown(Expression where) {
+        if (where == null) {
+            return null;
+        }
+        List<Expression> conjuncts = new ArrayList<>();
+        collectConjuncts(where, conjuncts);
+        for (Expression conjunct : conjuncts) {
+            boolean allLeft = true;
+            boolean allRight = true;
+            for (String fieldName : conjunct.fieldNames()) {
+                boolean onLeft = isLeftField(fieldName);
+                allLeft &= onLeft;
+                allRight &= !onLeft;
+            }
+            if (allLeft) {
+                leftConditions.add(conjunct);
+            } else if (allRight) {
+                rightConditions.add(conjunct);
+            } else {
+                residualCondition = residualCondition == null ? conjunct
+                        : new AndExpression(residualCondition, conjunct);
+            }
+        }
+        return residualCondition;
+    }
+
+    /**
+     * @param memoryLimit лимит памяти в байтах; 0 - без ограничения
+     * @return таблица только для чтения с полями обеих таблиц, названными
+     * таблица.поле
+     * @throws ApplicationException если соединение превышает лимит памяти
+     */
+    DataTable execute(long memoryLimit) {
+        int[] leftRows = filter(left, leftConditions);
+        int[] rightRows = filter(right, rightConditions);
+        int leftCount = leftRows == null ? left.size() : leftRows.length;
+        int rightCount = rightRows == null ? right.size() : rightRows.length;
+
+        boolean buildLeft = leftCount <= rightCount;
+        AtomicLong reserved = new AtomicLong();
+        reserve(reserved, (long) Math.min(leftCount, rightCount) * BUILD_ENTRY_SIZE, memoryLimit);
+        Map<Object, Bucket> hashTable = buildLeft
+                ? build(leftKey, leftRows, leftCount) : build(rightKey, rightRows, rightCount);
+        int[][] pairs = buildLeft
+                ? probe(hashTable, rightKey, rightRows, rightCount, true, reserved, memoryLimit)
+                : probe(hashTable, leftKey, leftRows, leftCount, false, reserved, memoryLimit);
+
+        Map<String, String> fields = new LinkedHashMap<>();
+        for (TableSnapshot side : List.of(left, right)) {
+            TableSchema schema = side.getSchema();
+            for (String fieldName : schema.getFieldNames()) {
+                fields.put(schema.getTableName() + "." + fieldName, schema.getFieldType(fieldName));
+            }
+        }
+        TableSchema schema = new TableSchema(left.getSchema().getTableName() + " join "
+                + right.getSchema().getTableName(), fields);
+        return new DataTable(schema, new JoinedStorage(schema, left, right, pairs[0], pairs[1]));
+    }
+
+    private boolean isLeftField(String fieldName) {
+        boolean onLeft = hasField(left, fieldName);
+        boolean onRight = hasField(right, fieldName);
+        if (onLeft && onRight) {
+            throw new IllegalArgumentException("Неоднозначное поле " + fieldName + ", укажите таблицу: "
+                    + left.getSchema().getTableName() + "." + fieldName + " или "
+                    + right.getSchema().getTableName() + "." + fieldName);
+        }
+        if (!onLeft && !onRight) {
+            throw new IllegalArgumentException("Поле не найдено: " + fieldName);
+        }
+        return onLeft;
+    }
+
+    private static boolean hasField(TableSnapshot snapshot, String fieldName) {
+        TableSchema schema = snapshot.getSchema();
+        String prefix = schema.getTableName() + ".";
+        if (fieldName.startsWith(prefix)) {
+            return schema.getFieldIndex(fieldName.substring(prefix.length())) >= 0;
+        }
+        return fieldName.indexOf('.') < 0 && schema.getFieldIndex(fieldName) >= 0;
+    }
+
+    private static void collectConjuncts(Expression expression, List<Expression> conjuncts) {
+        if (expression instanceof AndExpression and) {
+            collectConjuncts(and.left(), conjuncts);
+            collectConjuncts(and.right(), conjuncts);
+        } else {
+            conjuncts.add(expression);
+        }
+    }
+
+    /**
+     * @return номера строк, удовлетворяющих условиям, или null, если условий
+     * нет и подходят все строки снимка
+     */
+    private static int[] filter(TableSnapshot snapshot, List<Expression> conditions) {
+        if (conditions.isEmpty()) {
+            return snapshot.hasDeletedRows() ? snapshot.filterRowIds(row -> true) : null;
+        }
+        IntPredicate predicate = conditions.get(0).compile(snapshot);
+        for (int i = 1; i < conditions.size(); i++) {
+            IntPredicate next = conditions.get(i).compile(snapshot);
+            IntPredicate previous = predicate;
+            predicate = row -> previous.test(row) && next.test(row);
+        }
+        return snapshot.filterRowIds(predicate);
+    }
+
+    private static Map<Object, Bucket> build(Column key, int[] rows, int count) {
+        Map<Object, Bucket> hashTable = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            int row = rows == null ? i : rows[i];
+            Object value = key.getKey(row);
+            if (value != null) {
+                hashTable.computeIfAbsent(value, k -> new Bucket()).add(row);
+            }
+        }
+        return hashTable;
+    }
+
+    /**
+     * Ищет пары для строк одной стороны частями параллельно
+     *
+     * @param probeIsRight true, если строки probe-стороны - правая таблица
+     * @return номера строк левой и правой таблиц для каждой пары
+     */
+    private static int[][] probe(Map<Object, Bucket> hashTable, Column key, int[] rows, int count,
+            boolean probeIsRight, AtomicLong reserved, long memoryLimit) {
+        int chunkCount = (count + PROBE_CHUNK_SIZE - 1) / PROBE_CHUNK_SIZE;
+        List<int[][]> parts = IntStream.range(0, chunkCount).parallel()
+                .mapToObj(chunk -> {
+                    int[] probeRows = new int[1024];
+                    int[] buildRows = new int[1024];
+                    reserve(reserved, (long) probeRows.length * JoinedStorage.PAIR_SIZE, memoryLimit);
+                    int size = 0;
+                    int end = (int) Math.min(count, (long) (chunk + 1) * PROBE_CHUNK_SIZE);
+                    for (int i = chunk * PROBE_CHUNK_SIZE; i < end; i++) {
+                        int row = rows == null ? i : rows[i];
+                        Object value = key.getKey(row);
+                        Bucket bucket = value == null ? null : hashTable.get(value);
+                        if (bucket == null) {
+                            continue;
+                        }
+                        for (int j = 0; j < bucket.size; j++) {
+                            if (size == probeRows.length) {
+                                reserve(reserved, (long) size * JoinedStorage.PAIR_SIZE, memoryLimit);
+                                probeRows = Arrays.copyOf(probeRows, size * 2);
+                                buildRows = Arrays.copyOf(buildRows, size * 2);
+                            }
+                            probeRows[size] = row;
+                            buildRows[size] = bucket.rows[j];
+                            size++;
+                        }
+                    }
+                    probeRows = Arrays.copyOf(probeRows, size);
+                    buildRows = Arrays.copyOf(buildRows, size);
+                    return probeIsRight ? new int[][] {buildRows, probeRows} : new int[][] {probeRows, buildRows};
+                })
+                .collect(Collectors.toList());
+
+        int total = 0;
+        for (int[][] part : parts) {
+            total += part[0].length;
+        }
+        int[] leftRows = new int[total];
+        int[] rightRows = new int[total];
+        int position = 0;
+        for (int[][] part : parts) {
+            System.arraycopy(part[0], 0, leftRows, position, part[0].length);
+            System.arraycopy(part[1], 0, rightRows, position, part[1].length);
+            position += part[0].length;
+        }
+        return new int[][] {leftRows, rightRows};
+    }
+
+    private static void reserve(AtomicLong reserved, long bytes, long memoryLimit) {
+        long total = reserved.addAndGet(bytes);
+        if (memoryLimit > 0 && total > memoryLimit) {
+            throw new ApplicationException("Соединение таблиц превышает лимит памяти "
+                    + memoryLimit / (1024 * 1024) + " МБ (app.query.join-memory-mb); "
+                    + "уточните условие WHERE или увеличьте лимит");
+        }
+    }
+
+    /**
+     * Номера строк хеш-таблицы с одинаковым ключом
+     */
+    private static final class Bucket {
+
+        private int[] rows = new int[1];
+        private int size;
+
+        void add(int row) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+            }
+            rows[size++] = row;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package objectmanager.query;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+import objectmanager.model.TableSnapshot;
+import objectmanager.model.storage.Column;
+
+/**
+ * Принадлежность значения поля списку констант
+ */
+public record InExpression(String fieldName, List<String> values) implements Expression {
+
+    /**
+     * Короткий список проверяется цепочкой сравнений без упаковки значений
+     * колонки, длинный - поиском в хеш-множестве
+     */
+    private static final int MAX_CHAINED_VALUES = 4;
+
+    @Override
+    public IntPredicate compile(TableSnapshot snapshot) {
+        Column column = Columns.resolve(snapshot, fieldName);
+        List<Object> keys = new ArrayList<>(values.size());
+        for (String value : values) {
+            keys.add(column.getType().parse(value));
+        }
+
+        if (keys.size() <= MAX_CHAINED_VALUES) {
+            IntPredicate predicate = column.equalTo(keys.get(0));
+            for (int i = 1; i < keys.size(); i++) {
+                predicate = predicate.or(column.equalTo(keys.get(i)));
+            }
+            return predicate;
+        }
+        Set<Object> keySet = new HashSet<>(keys);
+        return row -> keySet.contains(column.getKey(row));
+    }
+
+    @Override
+    public Set<String> fieldNames() {
+        return Set.of(fieldName);
+    }
+
+    @Override
+    public String toString() {
+        return fieldName + " in (" + String.join(", ", values) + ")";
+    }
+}
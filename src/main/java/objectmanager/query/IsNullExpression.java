@@ -0,0 +1,27 @@
+package objectmanager.query;
+
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+import objectmanager.model.TableSnapshot;
+
+/**
+ * Проверка поля на пустое значение
+ */
+public record IsNullExpression(String fieldName) implements Expression {
+
+    @Override
+    public IntPredicate compile(TableSnapshot snapshot) {
+        return Columns.resolve(snapshot, fieldName)::isNull;
+    }
+
+    @Override
+    public Set<String> fieldNames() {
+        return Set.of(fieldName);
+    }
+
+    @Override
+    public String toString() {
+        return fieldName + " is null";
+    }
+}
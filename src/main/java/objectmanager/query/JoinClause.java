@@ -0,0 +1,14 @@
+package objectmanager.query;
+
+/**
+ * Соединение с другой таблицей по равенству полей: join таблица on
+ * левое_поле = правое_поле. Поля указываются как таблица.поле или просто
+ * поле, если имя однозначно
+ */
+public record JoinClause(String tableName, String leftField, String rightField) {
+
+    @Override
+    public String toString() {
+        return "join " + tableName + " on " + leftField + " = " + rightField;
+    }
+}
@@ -0,0 +1,148 @@
+package objectmanager.query;
+
+import java.util.List;
+import java.util.function.IntPredicate;
+
+import objectmanager.model.ComparisonOperator;
+import objectmanager.model.DataObject;
+import objectmanager.model.FieldType;
+import objectmanager.model.TableSchema;
+import objectmanager.model.TableSnapshot;
+import objectmanager.model.storage.Column;
+import objectmanager.model.storage.TableStorage;
+
+/**
+ * Хранилище результата соединения двух таблиц (паттерн Strategy): строка
+ * результата - пара номеров строк левой и правой таблиц. Значения не
+ * копируются, колонки результата читают их из колонок исходных снимков
+ */
+class JoinedStorage implements TableStorage {
+
+    /**
+     * Оценка памяти на одну пару номеров строк с учетом временных массивов
+     */
+    static final int PAIR_SIZE = 16;
+
+    private final TableSchema schema;
+    private final TableSnapshot left;
+    private final TableSnapshot right;
+    private final int[] leftRows;
+    private final int[] rightRows;
+
+    JoinedStorage(TableSchema schema, TableSnapshot left, TableSnapshot right, int[] leftRows, int[] rightRows) {
+        this.schema = schema;
+        this.left = left;
+        this.right = right;
+        this.leftRows = leftRows;
+        this.rightRows = rightRows;
+    }
+
+    @Override
+    public void append(DataObject dataObject) {
+        throw new UnsupportedOperationException("Результат соединения таблиц доступен только для чтения");
+    }
+
+    @Override
+    public void appendKeys(Object[] keys) {
+        throw new UnsupportedOperationException("Результат соединения таблиц доступен только для чтения");
+    }
+
+    @Override
+    public int size() {
+        return leftRows.length;
+    }
+
+    @Override
+    public DataObject getRow(int row) {
+        DataObject dataObject = new DataObject();
+        List<String> fieldNames = schema.getFieldNames();
+        for (int i = 0; i < fieldNames.size(); i++) {
+            String value = getColumn(i).getString(row);
+            if (value != null) {
+                dataObject.setValue(fieldNames.get(i), value);
+            }
+        }
+        return dataObject;
+    }
+
+    @Override
+    public Column getColumn(int fieldIndex) {
+        int leftFieldCount = left.getSchema().getFieldNames().size();
+        if (fieldIndex < leftFieldCount) {
+            return new JoinedColumn(left.getColumn(left.getSchema().getFieldNames().get(fieldIndex)), leftRows);
+        }
+        String fieldName = right.getSchema().getFieldNames().get(fieldIndex - leftFieldCount);
+        return new JoinedColumn(right.getColumn(fieldName), rightRows);
+    }
+
+    @Override
+    public long estimateSize() {
+        return (long) leftRows.length * PAIR_SIZE;
+    }
+
+    /**
+     * Колонка исходной таблицы, адресуемая номером строки результата
+     */
+    private static final class JoinedColumn implements Column {
+
+        private final Column column;
+        private final int[] rows;
+
+        JoinedColumn(Column column, int[] rows) {
+            this.column = column;
+            this.rows = rows;
+        }
+
+        @Override
+        public FieldType getType() {
+            return column.getType();
+        }
+
+        @Override
+        public String getString(int row) {
+            return column.getString(rows[row]);
+        }
+
+        @Override
+        public boolean isNull(int row) {
+            return column.isNull(rows[row]);
+        }
+
+        @Override
+        public Object getKey(int row) {
+            return column.getKey(rows[row]);
+        }
+
+        @Override
+        public long longValue(int row) {
+            return column.longValue(rows[row]);
+        }
+
+        @Override
+        public double doubleValue(int row) {
+            return column.doubleValue(rows[row]);
+        }
+
+        @Override
+        public int compare(int row, Object key) {
+            return column.compare(rows[row], key);
+        }
+
+        @Override
+        public int compareRows(int left, int right) {
+            return column.compareRows(rows[left], rows[right]);
+        }
+
+        @Override
+        public IntPredicate equalTo(Object key) {
+            IntPredicate predicate = column.equalTo(key);
+            return row -> predicate.test(rows[row]);
+        }
+
+        @Override
+        public IntPredicate matches(ComparisonOperator operator, Object key) {
+            IntPredicate predicate = column.matches(operator, key);
+            return row -> predicate.test(rows[row]);
+        }
+    }
+}
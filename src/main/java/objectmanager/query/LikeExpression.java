@@ -0,0 +1,74 @@
+package objectmanager.query;
+
+import java.util.Set;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import objectmanager.model.TableSnapshot;
+import objectmanager.model.storage.Column;
+
+/**
+ * Сопоставление строкового представления значения с шаблоном: % - любая
+ * последовательность символов, _ - один символ. Шаблоны вида abc, abc%, %abc
+ * и %abc% проверяются без регулярных выражений
+ */
+public record LikeExpression(String fieldName, String pattern) implements Expression {
+
+    @Override
+    public IntPredicate compile(TableSnapshot snapshot) {
+        Column column = Columns.resolve(snapshot, fieldName);
+        Predicate<String> matcher = compilePattern(pattern);
+        return row -> {
+            String value = column.getString(row);
+            return value != null && matcher.test(value);
+        };
+    }
+
+    private static Predicate<String> compilePattern(String pattern) {
+        boolean leading = pattern.startsWith("%");
+        boolean trailing = pattern.length() > 1 && pattern.endsWith("%");
+        String inner = pattern.substring(leading ? 1 : 0, pattern.length() - (trailing ? 1 : 0));
+        if (inner.indexOf('%') < 0 && inner.indexOf('_') < 0) {
+            if (leading && trailing) {
+                return value -> value.contains(inner);
+            }
+            if (leading) {
+                return value -> value.endsWith(inner);
+            }
+            if (trailing) {
+                return value -> value.startsWith(inner);
+            }
+            return inner::equals;
+        }
+
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (char c : pattern.toCharArray()) {
+            if (c == '%' || c == '_') {
+                if (literal.length() > 0) {
+                    regex.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                regex.append(c == '%' ? ".*" : ".");
+            } else {
+                literal.append(c);
+            }
+        }
+        if (literal.length() > 0) {
+            regex.append(Pattern.quote(literal.toString()));
+        }
+        Pattern compiled = Pattern.compile(regex.toString(), Pattern.DOTALL);
+        return value -> compiled.matcher(value).matches();
+    }
+
+    @Override
+    public Set<String> fieldNames() {
+        return Set.of(fieldName);
+    }
+
+    @Override
+    public String toString() {
+        return fieldName + " like '" + pattern + "'";
+    }
+}
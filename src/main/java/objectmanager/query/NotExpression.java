@@ -0,0 +1,28 @@
+package objectmanager.query;
+
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+import objectmanager.model.TableSnapshot;
+
+/**
+ * Отрицание условия. Логика двузначная: строка с пустым значением не
+ * удовлетворяет сравнению, поэтому удовлетворяет его отрицанию
+ */
+public record NotExpression(Expression operand) implements Expression {
+
+    @Override
+    public IntPredicate compile(TableSnapshot snapshot) {
+        return operand.compile(snapshot).negate();
+    }
+
+    @Override
+    public Set<String> fieldNames() {
+        return operand.fieldNames();
+    }
+
+    @Override
+    public String toString() {
+        return "not " + operand;
+    }
+}
@@ -0,0 +1,32 @@
+package objectmanager.query;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+import objectmanager.model.TableSnapshot;
+
+/**
+ * Дизъюнкция условий
+ */
+public record OrExpression(Expression left, Expression right) implements Expression {
+
+    @Override
+    public IntPredicate compile(TableSnapshot snapshot) {
+        IntPredicate leftPredicate = left.compile(snapshot);
+        IntPredicate rightPredicate = right.compile(snapshot);
+        return row -> leftPredicate.test(row) || rightPredicate.test(row);
+    }
+
+    @Override
+    public Set<String> fieldNames() {
+        Set<String> fieldNames = new HashSet<>(left.fieldNames());
+        fieldNames.addAll(right.fieldNames());
+        return fieldNames;
+    }
+
+    @Override
+    public String toString() {
+        return "(" + left + " or " + right + ")";
+    }
+}
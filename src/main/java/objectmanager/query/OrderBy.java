@@ -0,0 +1,12 @@
+package objectmanager.query;
+
+/**
+ * Ключ сортировки результата выборки
+ */
+public record OrderBy(String fieldName, boolean descending) {
+
+    @Override
+    public String toString() {
+        return fieldName + (descending ? " desc" : " asc");
+    }
+}
@@ -0,0 +1,172 @@
+package objectmanager.query;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Разобранный запрос на выборку: таблица и соединяемая с ней таблица,
+ * выбираемые поля и агрегатные функции, условие, группировка, порядок
+ * сортировки и ограничение количества строк
+ */
+public class Query {
+
+    /**
+     * Значение limit, при котором количество строк не ограничено
+     */
+    public static final int NO_LIMIT = -1;
+
+    private final String tableName;
+    private final JoinClause join;
+    private final List<SelectItem> items;
+    private final Expression where;
+    private final List<String> groupBy;
+    private final List<OrderBy> orderBy;
+    private final int limit;
+    private final int offset;
+
+    private Query(Builder builder) {
+        this.tableName = builder.tableName;
+        this.join = builder.join;
+        this.items = List.copyOf(builder.items);
+        this.where = builder.where;
+        this.groupBy = List.copyOf(builder.groupBy);
+        this.orderBy = List.copyOf(builder.orderBy);
+        this.limit = builder.limit;
+        this.offset = builder.offset;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * @return соединение с другой таблицей или null
+     */
+    public JoinClause getJoin() {
+        return join;
+    }
+
+    /**
+     * @return копия запроса без соединения с указанным условием; выполняется
+     * над результатом соединения
+     */
+    Query overJoinResult(String joinedTableName, Expression residualWhere) {
+        return new Builder()
+                .withTableName(joinedTableName)
+                .withItems(items)
+                .withWhere(residualWhere)
+                .withGroupBy(groupBy)
+                .withOrderBy(orderBy)
+                .withLimit(limit)
+                .withOffset(offset)
+                .build();
+    }
+
+    /**
+     * @return выбираемые значения; пустой список означает все поля схемы,
+     * а для запроса с группировкой - поля группировки и count(*)
+     */
+    public List<SelectItem> getItems() {
+        return items;
+    }
+
+    /**
+     * @return условие выборки или null, если выбираются все строки
+     */
+    public Expression getWhere() {
+        return where;
+    }
+
+    /**
+     * @return поля группировки
+     */
+    public List<String> getGroupBy() {
+        return groupBy;
+    }
+
+    /**
+     * @return true, если запрос вычисляет агрегатные функции или группирует
+     * строки
+     */
+    public boolean isAggregate() {
+        return !groupBy.isEmpty() || items.stream().anyMatch(SelectItem::isAggregate);
+    }
+
+    /**
+     * @return ключи сортировки; пустой список означает порядок добавления
+     */
+    public List<OrderBy> getOrderBy() {
+        return orderBy;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public boolean hasLimit() {
+        return limit != NO_LIMIT;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Строитель для Query (паттерн Builder)
+     */
+    public static class Builder {
+
+        private String tableName;
+        private JoinClause join;
+        private List<SelectItem> items = new ArrayList<>();
+        private Expression where;
+        private List<String> groupBy = new ArrayList<>();
+        private List<OrderBy> orderBy = new ArrayList<>();
+        private int limit = NO_LIMIT;
+        private int offset;
+
+        public Builder withTableName(String tableName) {
+            this.tableName = tableName;
+            return this;
+        }
+
+        public Builder withJoin(JoinClause join) {
+            this.join = join;
+            return this;
+        }
+
+        public Builder withItems(List<SelectItem> items) {
+            this.items = new ArrayList<>(items);
+            return this;
+        }
+
+        public Builder withWhere(Expression where) {
+            this.where = where;
+            return this;
+        }
+
+        public Builder withGroupBy(List<String> groupBy) {
+            this.groupBy = new ArrayList<>(groupBy);
+            return this;
+        }
+
+        public Builder withOrderBy(List<OrderBy> orderBy) {
+            this.orderBy = new ArrayList<>(orderBy);
+            return this;
+        }
+
+        public Builder withLimit(int limit) {
+            this.limit = limit;
+            return this;
+        }
+
+        public Builder withOffset(int offset) {
+            this.offset = offset;
+            return this;
+        }
+
+        public Query build() {
+            return new Query(this);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package objectmanager.query;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Кэш результатов запросов на выборку. Ключ - нормализованный текст запроса
+ * и версия таблицы, которая увеличивается при каждом изменении таблицы,
+ * поэтому результат по измененной таблице не может быть найден. Записи
+ * измененной таблицы удаляются сразу, а при превышении лимитов количества
+ * записей или оценки памяти вытесняются давно не использованные (LRU)
+ */
+public final class QueryCache {
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long usedBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param maxEntries наибольшее количество записей; 0 отключает кэш
+     * @param maxBytes лимит оценки памяти результатов в байтах; 0 отключает
+     * кэш
+     */
+    public QueryCache(int maxEntries, long maxBytes) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    public boolean isEnabled() {
+        return maxEntries > 0 && maxBytes > 0;
+    }
+
+    /**
+     * @return сохраненный результат или null
+     */
+    public synchronized QueryResult get(String tableName, long version, String queryText) {
+        if (!isEnabled()) {
+            return null;
+        }
+        Entry entry = entries.get(new Key(tableName, version, queryText));
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.result();
+    }
+
+    /**
+     * Сохраняет результат, если он укладывается в лимит памяти кэша
+     *
+     * @param version версия таблицы, прочитанная до выполнения запроса
+     */
+    public synchronized void put(String tableName, long version, String queryText, QueryResult result) {
+        long size = result.estimateMemoryUsage() + 2L * queryText.length();
+        if (!isEnabled() || size > maxBytes) {
+            return;
+        }
+        Entry previous = entries.put(new Key(tableName, version, queryText), new Entry(result, size));
+        usedBytes += size - (previous == null ? 0 : previous.size());
+
+        Iterator<Entry> iterator = entries.values().iterator();
+        while ((entries.size() > maxEntries || usedBytes > maxBytes) && iterator.hasNext()) {
+            usedBytes -= iterator.next().size();
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Удаляет результаты запросов к таблице
+     */
+    public synchronized void invalidate(String tableName) {
+        Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Key, Entry> entry = iterator.next();
+            if (entry.getKey().tableName().equals(tableName)) {
+                usedBytes -= entry.getValue().size();
+                iterator.remove();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        usedBytes = 0;
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(entries.size(), maxEntries, usedBytes, maxBytes, hits, misses, evictions);
+    }
+
+    /**
+     * Состояние кэша и счетчики обращений с момента запуска
+     */
+    public record Stats(int entries, int maxEntries, long usedBytes, long maxBytes,
+            long hits, long misses, long evictions) {
+
+        /**
+         * @return доля попаданий в процентах
+         */
+        public double hitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : 100.0 * hits / requests;
+        }
+    }
+
+    private record Key(String tableName, long version, String queryText) {
+    }
+
+    private record Entry(QueryResult result, long size) {
+    }
+}
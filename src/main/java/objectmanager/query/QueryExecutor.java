@@ -0,0 +1,209 @@
+package objectmanager.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.IntPredicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import objectmanager.model.DataTable;
+import objectmanager.model.TableSnapshot;
+import objectmanager.model.storage.Column;
+
+/**
+ * Выполнение запроса на выборку над снимком таблицы. Условие вычисляется по
+ * индексу, если он подходит, иначе компилируется и проверяется просмотром.
+ * Без сортировки при заданном limit просмотр последовательный и
+ * останавливается, как только найдено нужное количество строк. Сортировка с
+ * limit выполняется параллельным отбором первых offset + limit строк в кучах
+ * (см. {@link TopK}) без сортировки всего результата. Агрегатные функции
+ * вычисляются параллельно по группам (см. {@link GroupAggregator}).
+ * Соединение двух таблиц выполняется хешированием (см. {@link HashJoin}), и
+ * дальше запрос выполняется над его результатом как над обычной таблицей
+ */
+public final class QueryExecutor {
+
+    /**
+     * Количество строк, просматриваемых одной задачей при параллельном отборе
+     */
+    private static final int TOP_K_CHUNK_SIZE = 1 << 16;
+
+    private QueryExecutor() {
+    }
+
+    /**
+     * Выполняет запрос с соединением таблиц
+     *
+     * @param left таблица из запроса
+     * @param right таблица из раздела join
+     * @param memoryLimit лимит памяти на соединение в байтах; 0 - без
+     * ограничения
+     * @throws IllegalArgumentException если поле запроса отсутствует в схемах
+     * или неоднозначно
+     * @throws objectmanager.exception.ApplicationException если соединение
+     * превышает лимит памяти
+     */
+    public static QueryResult execute(DataTable left, DataTable right, Query query, long memoryLimit) {
+        HashJoin join = new HashJoin(left, right, query.getJoin());
+        Expression residualWhere = join.pushDown(query.getWhere());
+        DataTable joined = join.execute(memoryLimit);
+        return execute(joined, query.overJoinResult(joined.getSchema().getTableName(), residualWhere));
+    }
+
+    /**
+     * @throws IllegalArgumentException если поле запроса отсутствует в схеме
+     * или константа условия не соответствует типу поля
+     */
+    public static QueryResult execute(DataTable table, Query query) {
+        TableSnapshot snapshot = table.snapshot();
+        int offset = query.getOffset();
+        int limit = query.hasLimit() ? query.getLimit() : Integer.MAX_VALUE;
+        Expression where = query.getWhere();
+        int[] indexedRows = where == null ? null : where.findByIndex(table, snapshot);
+        boolean indexed = indexedRows != null;
+
+        if (query.isAggregate()) {
+            return aggregate(snapshot, query, indexedRows,
+                    indexed ? null : snapshot.visible(where == null ? null : where.compile(snapshot)));
+        }
+
+        List<String> fieldNames = new ArrayList<>();
+        for (SelectItem item : query.getItems()) {
+            fieldNames.add(item.fieldName());
+        }
+        if (fieldNames.isEmpty()) {
+            fieldNames = table.getSchema().getFieldNames();
+        }
+        List<Column> columns = new ArrayList<>(fieldNames.size());
+        for (String fieldName : fieldNames) {
+            columns.add(Columns.resolve(snapshot, fieldName));
+        }
+
+        if (!query.getOrderBy().isEmpty()) {
+            RowComparator comparator = RowComparator.of(snapshot, query.getOrderBy());
+            IntPredicate condition = indexed ? null : snapshot.visible(where == null ? null : where.compile(snapshot));
+            int[] rowIds;
+            if (query.hasLimit()) {
+                int count = (int) Math.min(Integer.MAX_VALUE, (long) offset + limit);
+                rowIds = topK(snapshot, indexedRows, condition, comparator, count);
+            } else {
+                rowIds = sort(indexed ? indexedRows : condition == null
+                        ? IntStream.range(0, snapshot.size()).toArray()
+                        : snapshot.filterRowIds(condition), comparator);
+            }
+            return new ScanResult(fieldNames, columns, page(rowIds, offset, limit), indexed);
+        }
+
+        if (where == null && snapshot.hasDeletedRows()) {
+            int[] rowIds = query.hasLimit()
+                    ? snapshot.scanRowIds(row -> true, offset, limit)
+                    : page(snapshot.filterRowIds(row -> true), offset, limit);
+            return new ScanResult(fieldNames, columns, rowIds, false);
+        }
+        if (where == null) {
+            int from = Math.min(offset, snapshot.size());
+            int to = (int) Math.min(snapshot.size(), (long) from + limit);
+            return new ScanResult(fieldNames, columns, IntStream.range(from, to).toArray(), false);
+        }
+        if (indexed) {
+            return new ScanResult(fieldNames, columns, page(indexedRows, offset, limit), true);
+        }
+        int[] rowIds;
+        if (query.hasLimit()) {
+            rowIds = snapshot.scanRowIds(where.compile(snapshot), offset, limit);
+        } else {
+            rowIds = page(snapshot.filterRowIds(where.compile(snapshot)), offset, limit);
+        }
+        return new ScanResult(fieldNames, columns, rowIds, false);
+    }
+
+    /**
+     * Вычисляет агрегатные функции по группам, затем сортирует и ограничивает
+     * строки групп
+     */
+    private static QueryResult aggregate(TableSnapshot snapshot, Query query, int[] indexedRows,
+            IntPredicate condition) {
+        List<SelectItem> items = query.getItems();
+        if (items.isEmpty()) {
+            items = new ArrayList<>();
+            for (String fieldName : query.getGroupBy()) {
+                items.add(new SelectItem(fieldName, null));
+            }
+            items.add(new SelectItem(null, AggregateFunction.COUNT));
+        }
+
+        GroupAggregator aggregator = new GroupAggregator(snapshot, items, query.getGroupBy());
+        List<Object[]> rows = aggregator.aggregate(indexedRows,
+                indexedRows == null ? snapshot.size() : indexedRows.length, condition);
+
+        if (!query.getOrderBy().isEmpty()) {
+            Comparator<Object[]> comparator = null;
+            for (OrderBy orderBy : query.getOrderBy()) {
+                int position = items.indexOf(SelectItem.parse(orderBy.fieldName()));
+                if (position < 0) {
+                    throw new IllegalArgumentException("Ключ сортировки " + orderBy.fieldName()
+                            + " должен входить в список выбираемых значений");
+                }
+                Comparator<Object[]> key = (left, right) -> GroupAggregator.compareValues(left[position], right[position]);
+                key = orderBy.descending() ? key.reversed() : key;
+                comparator = comparator == null ? key : comparator.thenComparing(key);
+            }
+            rows.sort(comparator);
+        }
+
+        int from = Math.min(query.getOffset(), rows.size());
+        int to = query.hasLimit() ? (int) Math.min(rows.size(), (long) from + query.getLimit()) : rows.size();
+        List<String> fieldNames = items.stream().map(SelectItem::toString).collect(Collectors.toList());
+        return new GroupResult(fieldNames, aggregator.getTypes(), rows.subList(from, to), indexedRows != null);
+    }
+
+    /**
+     * Отбирает первые count строк в порядке сортировки. Кандидаты делятся на
+     * части, в каждой части строки отбираются своей кучей параллельно, затем
+     * кучи сливаются
+     *
+     * @param candidates номера строк-кандидатов или null для всех строк
+     * снимка
+     * @param condition условие на строку или null, если подходят все
+     * кандидаты
+     */
+    private static int[] topK(TableSnapshot snapshot, int[] candidates, IntPredicate condition,
+            RowComparator comparator, int count) {
+        if (count == 0) {
+            return new int[0];
+        }
+        int candidateCount = candidates == null ? snapshot.size() : candidates.length;
+        int chunkCount = (candidateCount + TOP_K_CHUNK_SIZE - 1) / TOP_K_CHUNK_SIZE;
+        return IntStream.range(0, chunkCount).parallel()
+                .mapToObj(chunk -> {
+                    TopK top = new TopK(count, comparator);
+                    int end = (int) Math.min(candidateCount, (long) (chunk + 1) * TOP_K_CHUNK_SIZE);
+                    for (int i = chunk * TOP_K_CHUNK_SIZE; i < end; i++) {
+                        int row = candidates == null ? i : candidates[i];
+                        if (condition == null || condition.test(row)) {
+                            top.offer(row);
+                        }
+                    }
+                    return top;
+                })
+                .reduce(TopK::merge)
+                .map(TopK::toSortedArray)
+                .orElse(new int[0]);
+    }
+
+    private static int[] sort(int[] rowIds, RowComparator comparator) {
+        Integer[] boxed = Arrays.stream(rowIds).boxed().toArray(Integer[]::new);
+        Arrays.parallelSort(boxed, comparator::compare);
+        return Arrays.stream(boxed).mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int[] page(int[] rowIds, int offset, int limit) {
+        if (offset == 0 && limit >= rowIds.length) {
+            return rowIds;
+        }
+        int from = Math.min(offset, rowIds.length);
+        return Arrays.copyOfRange(rowIds, from, (int) Math.min(rowIds.length, (long) from + limit));
+    }
+}
@@ -0,0 +1,219 @@
+package objectmanager.query;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Разбор аргументов команды select:
+ * <pre>
+ * [значение, ... from] таблица [join таблица on поле = поле] [where условие] [group by поле, ...]
+ *     [order by значение [asc|desc], ...] [limit n] [offset m]
+ * </pre>
+ * Значение - поле или агрегатная функция count(*), count(поле), sum(поле),
+ * avg(поле), min(поле), max(поле)
+ * Ключевые слова предложений внутри кавычек и скобок условия не учитываются
+ */
+public final class QueryParser {
+
+    private static final Set<String> CLAUSES = Set.of("where", "group", "order", "limit", "offset");
+
+    private QueryParser() {
+    }
+
+    /**
+     * @throws IllegalArgumentException если запрос записан с ошибкой
+     */
+    public static Query parse(List<String> args) {
+        Query.Builder builder = new Query.Builder();
+
+        int from = indexOfFrom(args);
+        int position;
+        if (from > 0) {
+            if (from == args.size() - 1) {
+                throw new IllegalArgumentException("Ожидается имя таблицы после from");
+            }
+            builder.withItems(parseItems(String.join(" ", args.subList(0, from))));
+            builder.withTableName(args.get(from + 1));
+            position = from + 2;
+        } else {
+            builder.withTableName(args.get(0));
+            position = 1;
+        }
+
+        if (position < args.size() && args.get(position).equalsIgnoreCase("join")) {
+            position = parseJoin(args, position + 1, builder);
+        }
+
+        Set<String> seen = new HashSet<>();
+        while (position < args.size()) {
+            String clause = args.get(position).toLowerCase(Locale.ROOT);
+            if (!CLAUSES.contains(clause)) {
+                throw new IllegalArgumentException("Неожиданное слово '" + args.get(position)
+                        + "', ожидается where, group by, order by, limit или offset");
+            }
+            if (!seen.add(clause)) {
+                throw new IllegalArgumentException("Повторное предложение " + clause);
+            }
+            int start = position + 1;
+            if (clause.equals("group") || clause.equals("order")) {
+                if (start == args.size() || !args.get(start).equalsIgnoreCase("by")) {
+                    throw new IllegalArgumentException("Ожидается by после " + clause);
+                }
+                start++;
+            }
+            int end = nextClause(args, start);
+            List<String> body = args.subList(start, end);
+            if (body.isEmpty()) {
+                throw new IllegalArgumentException("Пустое предложение " + clause);
+            }
+            switch (clause) {
+                case "where" -> builder.withWhere(ExpressionParser.parse(String.join(" ", body)));
+                case "group" -> builder.withGroupBy(parseGroupBy(String.join(" ", body)));
+                case "order" -> builder.withOrderBy(parseOrderBy(String.join(" ", body)));
+                case "limit" -> builder.withLimit(parseCount(clause, body));
+                case "offset" -> builder.withOffset(parseCount(clause, body));
+                default -> throw new IllegalStateException(clause);
+            }
+            position = end;
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return позиция from перед именем таблицы или -1 для краткой формы
+     * запроса без списка полей
+     */
+    private static int indexOfFrom(List<String> args) {
+        for (int i = 0; i < args.size(); i++) {
+            String word = args.get(i).toLowerCase(Locale.ROOT);
+            if (word.equals("from")) {
+                return i;
+            }
+            if (CLAUSES.contains(word)) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return позиция после условия соединения
+     */
+    private static int parseJoin(List<String> args, int position, Query.Builder builder) {
+        if (position + 1 >= args.size() || !args.get(position + 1).equalsIgnoreCase("on")) {
+            throw new IllegalArgumentException("Ожидается join <таблица> on <поле> = <поле>");
+        }
+        String tableName = args.get(position);
+        int end = nextClause(args, position + 2);
+        String[] fields = String.join(" ", args.subList(position + 2, end)).split("=", -1);
+        if (fields.length != 2 || fields[0].isBlank() || fields[1].isBlank()
+                || fields[0].trim().contains(" ") || fields[1].trim().contains(" ")) {
+            throw new IllegalArgumentException("Условие соединения должно иметь вид <поле> = <поле>");
+        }
+        builder.withJoin(new JoinClause(tableName, fields[0].trim(), fields[1].trim()));
+        return end;
+    }
+
+    private static List<SelectItem> parseItems(String text) {
+        List<SelectItem> items = new ArrayList<>();
+        for (String part : text.split(",")) {
+            if (part.isBlank()) {
+                throw new IllegalArgumentException("Пустой элемент в списке выбираемых значений");
+            }
+            if (part.trim().equals("*")) {
+                return List.of();
+            }
+            items.add(SelectItem.parse(part));
+        }
+        return items;
+    }
+
+    private static List<String> parseGroupBy(String text) {
+        List<String> fieldNames = new ArrayList<>();
+        for (String part : text.split(",")) {
+            String fieldName = part.trim();
+            if (fieldName.isEmpty() || fieldName.contains(" ")) {
+                throw new IllegalArgumentException("Неверное поле группировки '" + fieldName + "'");
+            }
+            fieldNames.add(fieldName);
+        }
+        return fieldNames;
+    }
+
+    private static List<OrderBy> parseOrderBy(String text) {
+        List<OrderBy> orderBy = new ArrayList<>();
+        // Пробелы внутри скобок агрегатной функции не разделяют слова ключа
+        for (String part : text.replaceAll("\\s*\\(\\s*", "(").replaceAll("\\s*\\)", ")").split(",")) {
+            String[] words = part.trim().split("\\s+");
+            if (words[0].isEmpty() || words.length > 2) {
+                throw new IllegalArgumentException("Неверный ключ сортировки '" + part.trim()
+                        + "', используйте: поле [asc|desc]");
+            }
+            boolean descending = false;
+            if (words.length == 2) {
+                String direction = words[1].toLowerCase(Locale.ROOT);
+                if (!direction.equals("asc") && !direction.equals("desc")) {
+                    throw new IllegalArgumentException("Неверное направление сортировки: " + words[1]);
+                }
+                descending = direction.equals("desc");
+            }
+            orderBy.add(new OrderBy(words[0], descending));
+        }
+        return orderBy;
+    }
+
+    private static int parseCount(String clause, List<String> body) {
+        if (body.size() != 1) {
+            throw new IllegalArgumentException("Предложение " + clause + " ожидает одно число");
+        }
+        try {
+            int value = Integer.parseInt(body.get(0));
+            if (value < 0) {
+                throw new IllegalArgumentException("Значение " + clause + " не может быть отрицательным");
+            }
+            return value;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Неверное значение " + clause + ": " + body.get(0));
+        }
+    }
+
+    private static boolean isClause(List<String> args, int position) {
+        String word = args.get(position).toLowerCase(Locale.ROOT);
+        if (word.equals("group") || word.equals("order")) {
+            return position + 1 < args.size() && args.get(position + 1).equalsIgnoreCase("by");
+        }
+        return CLAUSES.contains(word);
+    }
+
+    /**
+     * @return позиция следующего ключевого слова предложения вне кавычек и
+     * скобок или конец списка
+     */
+    private static int nextClause(List<String> args, int start) {
+        char quote = 0;
+        int depth = 0;
+        for (int i = start; i < args.size(); i++) {
+            String word = args.get(i);
+            if (quote == 0 && depth == 0 && isClause(args, i)) {
+                return i;
+            }
+            for (char c : word.toCharArray()) {
+                if (quote != 0) {
+                    if (c == quote) {
+                        quote = 0;
+                    }
+                } else if (c == '\'' || c == '"') {
+                    quote = c;
+                } else if (c == '(') {
+                    depth++;
+                } else if (c == ')') {
+                    depth--;
+                }
+            }
+        }
+        return args.size();
+    }
+}
@@ -0,0 +1,30 @@
+package objectmanager.query;
+
+import java.util.List;
+
+/**
+ * Результат выполнения запроса: таблица значений, заголовки которой - имена
+ * выбранных полей или агрегатных функций
+ */
+public interface QueryResult {
+
+    List<String> getFieldNames();
+
+    int size();
+
+    /**
+     * @return строковое значение колонки field в строке результата row или
+     * null для пустого значения
+     */
+    String getValue(int row, int field);
+
+    /**
+     * @return true, если строки выбраны по индексу
+     */
+    boolean isIndexed();
+
+    /**
+     * @return приблизительный объем памяти, удерживаемой результатом, в байтах
+     */
+    long estimateMemoryUsage();
+}
@@ -0,0 +1,36 @@
+package objectmanager.query;
+
+import java.util.List;
+
+import objectmanager.model.TableSnapshot;
+import objectmanager.model.storage.Column;
+
+/**
+ * Сравнение строк снимка по номерам для сортировки результата. Значения
+ * сравниваются колонками с учетом типа поля без преобразования в строки;
+ * строки с равными ключами упорядочиваются по номеру, поэтому порядок
+ * результата однозначен
+ */
+@FunctionalInterface
+interface RowComparator {
+
+    int compare(int left, int right);
+
+    static RowComparator of(TableSnapshot snapshot, List<OrderBy> orderBy) {
+        Column[] columns = new Column[orderBy.size()];
+        boolean[] descending = new boolean[orderBy.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = Columns.resolve(snapshot, orderBy.get(i).fieldName());
+            descending[i] = orderBy.get(i).descending();
+        }
+        return (left, right) -> {
+            for (int i = 0; i < columns.length; i++) {
+                int comparison = columns[i].compareRows(left, right);
+                if (comparison != 0) {
+                    return descending[i] ? -comparison : comparison;
+                }
+            }
+            return Integer.compare(left, right);
+        };
+    }
+}
@@ -0,0 +1,53 @@
+package objectmanager.query;
+
+import java.util.List;
+
+import objectmanager.model.storage.Column;
+
+/**
+ * Результат выборки строк: номера выбранных строк снимка и колонки выбранных
+ * полей. Значения читаются из колонок при обращении, поэтому копируются
+ * только выбранные поля выбранных строк
+ */
+class ScanResult implements QueryResult {
+
+    private final List<String> fieldNames;
+    private final List<Column> columns;
+    private final int[] rowIds;
+    private final boolean indexed;
+
+    ScanResult(List<String> fieldNames, List<Column> columns, int[] rowIds, boolean indexed) {
+        this.fieldNames = fieldNames;
+        this.columns = columns;
+        this.rowIds = rowIds;
+        this.indexed = indexed;
+    }
+
+    @Override
+    public List<String> getFieldNames() {
+        return fieldNames;
+    }
+
+    @Override
+    public int size() {
+        return rowIds.length;
+    }
+
+    @Override
+    public String getValue(int row, int field) {
+        return columns.get(field).getString(rowIds[row]);
+    }
+
+    @Override
+    public boolean isIndexed() {
+        return indexed;
+    }
+
+    /**
+     * Колонки принадлежат снимку таблицы и не учитываются
+     */
+    @Override
+    public long estimateMemoryUsage() {
+        return 64 + 4L * rowIds.length;
+    }
+}
@@ -0,0 +1,49 @@
+package objectmanager.query;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Элемент списка выбираемых значений: поле или агрегатная функция от поля.
+ * Для count(*) имя поля равно null
+ */
+public record SelectItem(String fieldName, AggregateFunction function) {
+
+    private static final Pattern AGGREGATE = Pattern.compile("(\\w+)\\s*\\(\\s*([^()\\s]+)\\s*\\)");
+
+    public boolean isAggregate() {
+        return function != null;
+    }
+
+    /**
+     * @throws IllegalArgumentException если функция неизвестна или * указана
+     * не в count
+     */
+    public static SelectItem parse(String text) {
+        String trimmed = text.trim();
+        Matcher matcher = AGGREGATE.matcher(trimmed);
+        if (!matcher.matches()) {
+            return new SelectItem(trimmed, null);
+        }
+        AggregateFunction function = AggregateFunction.fromName(matcher.group(1));
+        if (function == null) {
+            throw new IllegalArgumentException("Неизвестная функция: " + matcher.group(1));
+        }
+        String argument = matcher.group(2);
+        if (argument.equals("*")) {
+            if (function != AggregateFunction.COUNT) {
+                throw new IllegalArgumentException("Аргумент * допустим только в count");
+            }
+            return new SelectItem(null, function);
+        }
+        return new SelectItem(argument, function);
+    }
+
+    @Override
+    public String toString() {
+        if (function == null) {
+            return fieldName;
+        }
+        return function.getName() + "(" + (fieldName == null ? "*" : fieldName) + ")";
+    }
+}
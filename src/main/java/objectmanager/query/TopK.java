@@ -0,0 +1,86 @@
+package objectmanager.query;
+
+import java.util.Arrays;
+
+/**
+ * Первые k строк в порядке сортировки, отбираемые за один проход: строки
+ * хранятся в двоичной куче, на вершине которой худшая из отобранных строк,
+ * поэтому добавление стоит O(log k), а большинство строк отсекается одним
+ * сравнением с вершиной
+ */
+final class TopK {
+
+    private final int capacity;
+    private final RowComparator comparator;
+    private int[] heap;
+    private int size;
+
+    TopK(int capacity, RowComparator comparator) {
+        this.capacity = capacity;
+        this.comparator = comparator;
+        this.heap = new int[Math.min(capacity, 1024)];
+    }
+
+    void offer(int row) {
+        if (size < capacity) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, (int) Math.min((long) capacity, heap.length * 2L));
+            }
+            heap[size] = row;
+            siftUp(size++);
+        } else if (comparator.compare(row, heap[0]) < 0) {
+            heap[0] = row;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Добавляет строки, отобранные другой частью просмотра
+     */
+    TopK merge(TopK other) {
+        for (int i = 0; i < other.size; i++) {
+            offer(other.heap[i]);
+        }
+        return this;
+    }
+
+    /**
+     * @return отобранные строки в порядке сортировки
+     */
+    int[] toSortedArray() {
+        return Arrays.stream(heap, 0, size).boxed()
+                .sorted(comparator::compare)
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    private void siftUp(int index) {
+        int row = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (comparator.compare(row, heap[parent]) <= 0) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = row;
+    }
+
+    private void siftDown(int index) {
+        int row = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && comparator.compare(heap[child + 1], heap[child]) > 0) {
+                child++;
+            }
+            if (comparator.compare(row, heap[child]) >= 0) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = row;
+    }
+}
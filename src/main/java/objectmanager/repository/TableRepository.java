@@ -3,48 +3,84 @@ package objectmanager.repository;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Repository;
 
 import objectmanager.exception.ApplicationException;
 import objectmanager.exception.ExceptionHandler;
+import objectmanager.model.Compression;
+import objectmanager.model.DataFormat;
+import objectmanager.model.DataObject;
 import objectmanager.model.DataTable;
+import objectmanager.model.StorageType;
 import objectmanager.model.TableSchema;
+import objectmanager.model.TableSnapshot;
+import objectmanager.model.index.IndexType;
 import objectmanager.persistence.DataSaver;
+import objectmanager.persistence.FsyncPolicy;
 import objectmanager.persistence.SchemaLoader;
 import objectmanager.persistence.TableLoader;
+import objectmanager.persistence.WriteAheadLog;
+import objectmanager.query.QueryCache;
 import objectmanager.service.AsyncService;
-import objectmanager.service.ConcurrentHashMap;
 
 @Repository
 public class TableRepository {
 
+    private static final Logger logger = LoggerFactory.getLogger(TableRepository.class);
+
     private final Path workingDirectory;
     private final Path tablesDirectory;
     private final Path dataDirectory;
+    private final Path walDirectory;
     private final SchemaLoader schemaLoader;
     private final TableLoader tableLoader;
     private final DataSaver dataSaver;
+    private final Map<String, TableSchema> schemas = new ConcurrentHashMap<>();
     private final Map<String, DataTable> tables = new ConcurrentHashMap<>();
+    private final Map<String, Long> lastAccess = new ConcurrentHashMap<>();
+    private final AtomicLong accessClock = new AtomicLong();
     private final Map<String, Boolean> dirtyTables = new ConcurrentHashMap<>();
+    private final Map<String, WriteAheadLog> logs = new ConcurrentHashMap<>();
+    private final Map<String, Long> tableVersions = new ConcurrentHashMap<>();
+    private final Set<String> compactionsScheduled = ConcurrentHashMap.newKeySet();
     private final AsyncService asyncService;
     private final ExceptionHandler exceptionHandler;
 
+    private long memoryBudget;
+    private long joinMemoryLimit;
+    private QueryCache queryCache = new QueryCache(256, 64L * 1024 * 1024);
+    private FsyncPolicy fsyncPolicy = FsyncPolicy.PERIODIC;
+    private long fsyncIntervalMillis = 1000;
+    private long checkpointIntervalMillis = 60000;
+    private double compactionThreshold = 0.3;
+
     private ScheduledFuture<?> autosaveTask;
+    private ScheduledFuture<?> checkpointTask;
 
     public TableRepository(Path workingDirectory, AsyncService asyncService, ExceptionHandler exceptionHandler) {
         this.workingDirectory = workingDirectory;
         this.tablesDirectory = workingDirectory.resolve("tables");
         this.dataDirectory = workingDirectory.resolve("data");
+        this.walDirectory = workingDirectory.resolve("wal");
         this.schemaLoader = new SchemaLoader();
         this.tableLoader = new TableLoader();
         this.dataSaver = new DataSaver();
@@ -52,96 +88,287 @@ public class TableRepository {
         this.exceptionHandler = exceptionHandler;
     }
 
+    /**
+     * Настраивает сброс журналов предзаписи на диск. Должен вызываться до
+     * {@link #initialize()}
+     */
+    public void configureWriteAheadLog(FsyncPolicy fsyncPolicy, long fsyncIntervalMillis) {
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalMillis = fsyncIntervalMillis;
+    }
+
+    /**
+     * Задает период контрольных точек измененных таблиц; 0 - только при
+     * сохранении, вытеснении и остановке. Должен вызываться до
+     * {@link #initialize()}
+     */
+    public void setCheckpointInterval(long checkpointIntervalMillis) {
+        this.checkpointIntervalMillis = checkpointIntervalMillis;
+    }
+
+    /**
+     * Задает долю удаленных строк таблицы, при превышении которой запускается
+     * фоновое уплотнение; 0 отключает уплотнение по доле удаленных строк
+     */
+    public void setCompactionThreshold(double compactionThreshold) {
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    public Path getWorkingDirectory() {
+        return workingDirectory;
+    }
+
+    /**
+     * Задает бюджет памяти для данных таблиц в байтах; 0 - без ограничения
+     */
+    public void setMemoryBudget(long memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Задает лимит памяти на одно соединение таблиц в запросе в байтах;
+     * 0 - без ограничения
+     */
+    public void setJoinMemoryLimit(long joinMemoryLimit) {
+        this.joinMemoryLimit = joinMemoryLimit;
+    }
+
+    public long getJoinMemoryLimit() {
+        return joinMemoryLimit;
+    }
+
+    /**
+     * Задает лимиты кэша результатов запросов; 0 отключает кэш
+     */
+    public void configureQueryCache(int maxEntries, long maxBytes) {
+        this.queryCache = new QueryCache(maxEntries, maxBytes);
+    }
+
+    public QueryCache getQueryCache() {
+        return queryCache;
+    }
+
+    /**
+     * @return версия данных таблицы, которая увеличивается при каждом
+     * изменении, выгрузке и удалении таблицы; используется в ключе кэша
+     * результатов запросов
+     */
+    public long getTableVersion(String tableName) {
+        return tableVersions.getOrDefault(tableName, 0L);
+    }
+
+    /**
+     * Включает или отключает форматированный вывод файлов данных
+     */
+    public void setPrettyPrintData(boolean prettyPrint) {
+        dataSaver.setPrettyPrint(prettyPrint);
+    }
+
     public void initialize() {
         try {
             Files.createDirectories(tablesDirectory);
             Files.createDirectories(dataDirectory);
+            Files.createDirectories(walDirectory);
             startAutosaveTask();
+            if (checkpointIntervalMillis > 0) {
+                checkpointTask = asyncService.scheduleWithFixedDelay(this::checkpointModifiedTables,
+                        checkpointIntervalMillis, checkpointIntervalMillis, TimeUnit.MILLISECONDS);
+            }
         } catch (IOException e) {
             throw new ApplicationException("Не удалось создать необходимые директории: "
-                    + tablesDirectory + " или " + dataDirectory, e);
+                    + tablesDirectory + ", " + dataDirectory + " или " + walDirectory, e);
         }
     }
 
+    /**
+     * Вставки сохраняются в журналы предзаписи в момент выполнения, поэтому
+     * автосохранению достаточно периодически сбрасывать журналы на диск
+     */
     private void startAutosaveTask() {
+        if (fsyncPolicy != FsyncPolicy.PERIODIC) {
+            return;
+        }
         autosaveTask = asyncService.scheduleAtFixedRate(() -> {
-            try {
-                saveModifiedTables();
-            } catch (Exception e) {
-                exceptionHandler.handleException(e, "Ошибка при автосохранении таблиц");
+            for (Map.Entry<String, WriteAheadLog> entry : logs.entrySet()) {
+                try {
+                    entry.getValue().sync();
+                } catch (Exception e) {
+                    exceptionHandler.handleException(e, "Ошибка при сбросе журнала таблицы " + entry.getKey());
+                }
             }
-        }, 30, 30, TimeUnit.SECONDS);
+        }, fsyncIntervalMillis, fsyncIntervalMillis, TimeUnit.MILLISECONDS);
     }
 
-    private synchronized void saveModifiedTables() throws IOException {
-        if (dirtyTables.isEmpty()) {
+    /**
+     * Загружает схемы всех таблиц параллельно на пуле задач приложения.
+     * Данные таблицы загружаются при первом обращении к ней (см.
+     * {@link #findTable(String)}). Ошибка загрузки одной схемы не влияет на
+     * остальные
+     */
+    public void loadAllSchemas() {
+        long start = System.nanoTime();
+        List<Path> schemaFiles;
+        try (Stream<Path> paths = Files.list(tablesDirectory)) {
+            schemaFiles = paths.filter(Files::isRegularFile)
+                    .filter(p -> p.toString().endsWith(".json"))
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            exceptionHandler.handleException(e, "Ошибка чтения файлов схем в " + tablesDirectory);
             return;
         }
 
-        for (Map.Entry<String, Boolean> entry : dirtyTables.entrySet()) {
-            if (entry.getValue()) {
-                String tableName = entry.getKey();
-                DataTable table = tables.get(tableName);
-                if (table != null) {
-                    try {
-                        dataSaver.saveData(dataDirectory, table);
-                    } catch (IOException e) {
-                        exceptionHandler.handleException(e, "Не удалось сохранить данные таблицы: " + tableName);
-                        throw e;
-                    }
-                }
+        CompletableFuture<?>[] loads = schemaFiles.stream()
+                .map(schemaFile -> asyncService.executeAsync(() -> loadSchema(schemaFile)))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(loads).join();
+
+        logger.info("Загружено схем таблиц: {} из {} за {} мс", schemas.size(), schemaFiles.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private void loadSchema(Path schemaFile) {
+        try {
+            Optional<TableSchema> schema = schemaLoader.loadSchema(schemaFile);
+            if (schema.isEmpty()) {
+                exceptionHandler.handleException(
+                        new ApplicationException("Неверный формат схемы"),
+                        "Не удалось загрузить схему из файла: " + schemaFile
+                );
+                return;
             }
+            schemas.put(schema.get().getTableName(), schema.get());
+        } catch (Exception e) {
+            exceptionHandler.handleException(e, "Ошибка при обработке файла: " + schemaFile);
         }
-        dirtyTables.clear();
     }
 
-    public void loadAllTables() {
-        try (Stream<Path> paths = Files.list(tablesDirectory)) {
-            List<Path> schemaFiles = paths.filter(Files::isRegularFile)
-                    .filter(p -> p.toString().endsWith(".json"))
-                    .collect(Collectors.toList());
+    /**
+     * Возвращает таблицу, при необходимости загружая ее данные. После загрузки
+     * из памяти вытесняются давно не использованные таблицы, если их общий
+     * объем превышает бюджет памяти
+     */
+    public Optional<DataTable> findTable(String tableName) {
+        DataTable table = tables.get(tableName);
+        if (table == null) {
+            TableSchema schema = schemas.get(tableName);
+            if (schema == null) {
+                return Optional.empty();
+            }
+            table = loadTable(schema);
+            if (table == null) {
+                return Optional.empty();
+            }
+        }
+        lastAccess.put(tableName, accessClock.incrementAndGet());
+        return Optional.of(table);
+    }
 
-            for (Path schemaFile : schemaFiles) {
-                try {
-                    Optional<TableSchema> schema = schemaLoader.loadSchema(schemaFile);
-                    if (schema.isEmpty()) {
-                        exceptionHandler.handleException(
-                                new ApplicationException("Неверный формат схемы"),
-                                "Не удалось загрузить схему из файла: " + schemaFile
-                        );
-                        continue;
-                    }
+    private DataTable loadTable(TableSchema schema) {
+        String tableName = schema.getTableName();
+        DataTable table;
+        synchronized (schema) {
+            table = tables.get(tableName);
+            if (table != null) {
+                return table;
+            }
 
-                    TableSchema tableSchema = schema.get();
-                    String tableName = tableSchema.getTableName();
+            long start = System.nanoTime();
+            Optional<DataTable> data = tableLoader.loadData(dataDirectory, walDirectory, schema);
+            if (data.isEmpty()) {
+                exceptionHandler.handleException(
+                        new ApplicationException("Ошибка загрузки данных"),
+                        "Не удалось загрузить данные для таблицы: " + tableName
+                );
+                return null;
+            }
 
-                    Optional<DataTable> data = tableLoader.loadData(dataDirectory, tableSchema);
-                    if (data.isEmpty()) {
-                        exceptionHandler.handleException(
-                                new ApplicationException("Ошибка загрузки данных"),
-                                "Не удалось загрузить данные для таблицы: " + tableName
-                        );
-                        continue;
-                    }
+            table = data.get();
+            lastAccess.put(tableName, accessClock.incrementAndGet());
+            tables.put(tableName, table);
+            logger.info("Таблица {} загружена за {} мс, строк: {}", tableName,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), table.getObjectCount());
+        }
+        evictColdTables(tableName);
+        return table;
+    }
 
-                    tables.put(tableName, data.get());
-                } catch (Exception e) {
-                    exceptionHandler.handleException(e, "Ошибка при обработке файла: " + schemaFile);
-                }
+    /**
+     * Вытесняет таблицы в порядке давности последнего обращения (LRU), пока
+     * оценка занятой памяти не уложится в бюджет. Измененные таблицы перед
+     * вытеснением сохраняются
+     */
+    private synchronized void evictColdTables(String loadedTableName) {
+        if (memoryBudget <= 0) {
+            return;
+        }
+
+        long used = 0;
+        for (DataTable table : tables.values()) {
+            used += table.estimateMemoryUsage();
+        }
+        if (used <= memoryBudget) {
+            return;
+        }
+
+        List<String> candidates = tables.keySet().stream()
+                .filter(name -> !name.equals(loadedTableName))
+                .sorted(Comparator.comparingLong(name -> lastAccess.getOrDefault(name, 0L)))
+                .collect(Collectors.toList());
+        for (String tableName : candidates) {
+            if (used <= memoryBudget) {
+                break;
+            }
+            DataTable table = tables.get(tableName);
+            if (table == null) {
+                continue;
+            }
+            long size = table.estimateMemoryUsage();
+            try {
+                evictTable(tableName, table);
+                used -= size;
+            } catch (IOException e) {
+                exceptionHandler.handleException(e, "Не удалось вытеснить таблицу " + tableName);
             }
-        } catch (IOException e) {
-            exceptionHandler.handleException(e, "Ошибка чтения файлов схем в " + tablesDirectory);
         }
     }
 
-    public Optional<DataTable> findTable(String tableName) {
-        return Optional.ofNullable(tables.get(tableName));
+    /**
+     * Строки, вставленные после контрольной точки, остаются в журнале и
+     * воспроизводятся при следующей загрузке таблицы. Таблица удаляется под
+     * блокировкой журнала, поэтому после этого в журнал не пишутся строки
+     * вытесненной таблицы (см. {@link #isLoaded})
+     */
+    private void evictTable(String tableName, DataTable table) throws IOException {
+        if (dirtyTables.remove(tableName) != null) {
+            try {
+                checkpoint(table);
+            } catch (IOException e) {
+                markTableAsDirty(tableName);
+                throw e;
+            }
+        }
+        synchronized (getLog(tableName)) {
+            tables.remove(tableName, table);
+        }
+        lastAccess.remove(tableName);
+        tableChanged(tableName);
+        logger.info("Таблица {} вытеснена из памяти", tableName);
     }
 
+    /**
+     * @return таблицы, данные которых сейчас загружены в память
+     */
     public Map<String, DataTable> getAllTables() {
         return Collections.unmodifiableMap(tables);
     }
 
+    /**
+     * @return схемы всех таблиц, включая не загруженные в память
+     */
+    public Map<String, TableSchema> getTableSchemas() {
+        return Collections.unmodifiableMap(schemas);
+    }
+
     public CompletableFuture<Boolean> saveTableAsync(String tableName) {
         return CompletableFuture.supplyAsync(() -> {
             try {
@@ -157,15 +384,356 @@ public class TableRepository {
                 });
     }
 
-    private void saveData(Path filePath, DataTable table) throws IOException {
-        if (Files.exists(filePath) && table.getObjectCount() == 0) {
+    /**
+     * Добавляет строку в таблицу и записывает ее в журнал предзаписи таблицы.
+     * Строка считается сохраненной после возврата из метода
+     *
+     * @return номер добавленной строки
+     */
+    public int insert(String tableName, DataObject dataObject) throws IOException {
+        WriteAheadLog log = getLog(tableName);
+        int row;
+        while (true) {
+            DataTable table = findTable(tableName)
+                    .orElseThrow(() -> new ApplicationException("Таблица не найдена: " + tableName));
+            synchronized (log) {
+                if (!isLoaded(tableName, table)) {
+                    continue;
+                }
+                row = table.addDataObject(dataObject);
+                try {
+                    log.appendInsert(row, dataObject, table.getSchema().getFieldNames());
+                } catch (IOException | RuntimeException e) {
+                    // Строка не попала в журнал, поэтому не должна остаться
+                    // и в таблице; при воспроизведении на ее месте будет
+                    // удаленная строка
+                    table.deleteRows(new int[]{row});
+                    throw e;
+                }
+                break;
+            }
+        }
+        markTableAsDirty(tableName);
+        return row;
+    }
+
+    /**
+     * Таблица могла быть вытеснена или заменена после того, как ее нашли без
+     * блокировки журнала. Строка, добавленная в такую таблицу, получила бы
+     * номер, уже выданный строке загруженной заново таблицы, поэтому
+     * изменение повторяется с текущей таблицей. Вызывается под блокировкой
+     * журнала таблицы
+     */
+    private boolean isLoaded(String tableName, DataTable table) {
+        return tables.get(tableName) == table;
+    }
+
+    private WriteAheadLog getLog(String tableName) throws IOException {
+        WriteAheadLog log = logs.get(tableName);
+        if (log != null) {
+            return log;
+        }
+        synchronized (logs) {
+            log = logs.get(tableName);
+            if (log == null) {
+                log = new WriteAheadLog(walDirectory, tableName, fsyncPolicy);
+                logs.put(tableName, log);
+            }
+            return log;
+        }
+    }
+
+    /**
+     * Контрольная точка таблицы: под блокировкой журнала снимается снимок
+     * таблицы и начинается новый сегмент журнала, затем снимок сохраняется в
+     * файл данных без блокировки вставок, и только после этого удаляются
+     * закрытые сегменты, строки которых вошли в снимок. Вставки, сделанные во
+     * время сохранения, остаются в новом сегменте, поэтому после перезапуска
+     * воспроизводится лишь хвост журнала с последней контрольной точки
+     */
+    private void checkpoint(DataTable table) throws IOException {
+        TableSchema schema = table.getSchema();
+        if (schema.getStorageType() == StorageType.MAPPED) {
+            // Отображенная таблица не изменяется и уже совпадает со своим файлом
+            return;
+        }
+        Path filePath = dataFilePath(schema);
+        if (Files.exists(filePath) && table.getRowCount() == 0) {
             exceptionHandler.handleException(
                     new ApplicationException("Предотвращена попытка сохранения пустых данных"),
                     "Отменено сохранение пустых данных в существующий файл: " + filePath
             );
             return;
         }
-        dataSaver.saveData(dataDirectory, table);
+
+        // Монитор схемы не дает двум контрольным точкам или конвертации
+        // таблицы выполняться одновременно
+        synchronized (schema) {
+            WriteAheadLog log = getLog(schema.getTableName());
+            TableSnapshot snapshot;
+            long lastSegment;
+            synchronized (log) {
+                finishCompaction(schema, log);
+                snapshot = table.snapshot();
+                if (snapshot.hasDeletedRows()) {
+                    // Удаленные строки нельзя сохранить без перенумерации,
+                    // поэтому контрольная точка уплотняет таблицу
+                    compact(table, log);
+                    return;
+                }
+                lastSegment = log.rotate();
+            }
+            dataSaver.saveSnapshot(dataDirectory, snapshot, schema.getDataFormat(), schema.getCompression());
+            log.deleteSegments(lastSegment);
+        }
+    }
+
+    /**
+     * Уплотняет таблицу: удаленные строки физически убираются, оставшиеся
+     * строки перенумеровываются. Журнал сначала переключается на новый
+     * сегмент, так что записи с прежней нумерацией остаются только в закрытых
+     * сегментах. Затем уплотненная копия целиком сохраняется в отдельный
+     * файл: с этого момента таблица задается этим файлом и текущим сегментом
+     * журнала, и только после этого нумерация меняется в памяти. Закрытые
+     * сегменты удаляются и файл заменяет файл данных последними (см.
+     * {@link #finishCompaction(TableSchema, WriteAheadLog)}); если эти шаги
+     * не выполнились, их завершают следующая контрольная точка или загрузка
+     * таблицы. Вызывается под блокировками схемы и журнала таблицы, поэтому
+     * записи в таблицу на время уплотнения приостанавливаются
+     */
+    private void compact(DataTable table, WriteAheadLog log) throws IOException {
+        TableSchema schema = table.getSchema();
+        String tableName = schema.getTableName();
+        long start = System.nanoTime();
+        int deleted = table.getDeletedCount();
+        log.rotate();
+        DataTable compacted = table.compactedCopy();
+        Path compactedPath = TableLoader.compactedFilePath(dataDirectory, schema);
+        try {
+            dataSaver.saveSnapshotTo(compactedPath, compacted.snapshot(), schema.getDataFormat(),
+                    schema.getCompression());
+        } catch (IOException e) {
+            Files.deleteIfExists(compactedPath);
+            throw e;
+        }
+        table.replaceWith(compacted);
+        dirtyTables.remove(tableName);
+        tableChanged(tableName);
+        try {
+            finishCompaction(schema, log);
+        } catch (IOException e) {
+            markTableAsDirty(tableName);
+            throw e;
+        }
+        logger.info("Таблица {} уплотнена за {} мс, удалено строк: {}", tableName,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), deleted);
+    }
+
+    /**
+     * Завершает сохраненное уплотнение, если оно есть: удаляет закрытые
+     * сегменты журнала с прежней нумерацией строк и заменяет файл данных
+     * уплотненным файлом. Вызывается под блокировкой журнала таблицы
+     */
+    private void finishCompaction(TableSchema schema, WriteAheadLog log) throws IOException {
+        Path compactedPath = TableLoader.compactedFilePath(dataDirectory, schema);
+        if (!Files.exists(compactedPath)) {
+            return;
+        }
+        log.deleteSegments(Long.MAX_VALUE);
+        Files.move(compactedPath, dataFilePath(schema), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Уплотняет таблицу, если в ней есть удаленные строки
+     *
+     * @return false, если удаленных строк нет
+     */
+    public boolean compactTable(String tableName) throws IOException {
+        DataTable table = findTable(tableName)
+                .orElseThrow(() -> new ApplicationException("Таблица не найдена: " + tableName));
+        TableSchema schema = table.getSchema();
+        WriteAheadLog log = getLog(tableName);
+        synchronized (schema) {
+            synchronized (log) {
+                if (!table.snapshot().hasDeletedRows()) {
+                    return false;
+                }
+                compact(table, log);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Запускает фоновое уплотнение таблицы, когда доля удаленных строк
+     * превышает порог. Повторно уплотнение не планируется, пока не завершится
+     * уже запланированное
+     */
+    private void maybeScheduleCompaction(String tableName, DataTable table) {
+        if (compactionThreshold <= 0 || table.getDeletedCount() <= compactionThreshold * table.getRowCount()
+                || !compactionsScheduled.add(tableName)) {
+            return;
+        }
+        asyncService.executeAsync(() -> {
+            try {
+                if (tables.get(tableName) == table) {
+                    compactTable(tableName);
+                }
+            } catch (Exception e) {
+                exceptionHandler.handleException(e, "Ошибка уплотнения таблицы " + tableName);
+            } finally {
+                compactionsScheduled.remove(tableName);
+            }
+        });
+    }
+
+    /**
+     * Добавляет пакет строк одной операцией: строки добавляются в таблицу и
+     * записываются в журнал под одной блокировкой журнала, таблица отмечается
+     * измененной один раз
+     *
+     * @param chunks значения полей в порядке схемы, разобранные по типам полей
+     * @return номер первой добавленной строки
+     */
+    public int insertAll(String tableName, List<Object[][]> chunks) throws IOException {
+        WriteAheadLog log = getLog(tableName);
+        int firstRow;
+        while (true) {
+            DataTable table = findWritableTable(tableName);
+            synchronized (log) {
+                if (!isLoaded(tableName, table)) {
+                    continue;
+                }
+                firstRow = table.addRows(chunks);
+                try {
+                    log.appendInserts(firstRow, chunks, table.getSchema());
+                } catch (IOException | RuntimeException e) {
+                    table.deleteRows(IntStream.range(firstRow, table.getRowCount()).toArray());
+                    throw e;
+                }
+                break;
+            }
+        }
+        markTableAsDirty(tableName);
+        return firstRow;
+    }
+
+    /**
+     * Удаляет строки таблицы: строки помечаются удаленными, а удаление
+     * записывается в журнал предзаписи. Место удаленных строк освобождается
+     * при уплотнении таблицы
+     *
+     * @param rowMatcher находит номера удаляемых строк в снимке текущей
+     * таблицы: таблица могла быть вытеснена и загружена заново
+     * @return количество удаленных строк
+     */
+    public int deleteRows(String tableName, BiFunction<DataTable, TableSnapshot, int[]> rowMatcher)
+            throws IOException {
+        WriteAheadLog log = getLog(tableName);
+        DataTable table;
+        int[] deleted;
+        while (true) {
+            table = findWritableTable(tableName);
+            TableSnapshot snapshot = table.snapshot();
+            int[] rows = rowMatcher.apply(table, snapshot);
+            synchronized (log) {
+                if (!isLoaded(tableName, table)) {
+                    continue;
+                }
+                deleted = table.liveRows(currentRows(table, snapshot, rows, rowMatcher));
+                if (deleted.length > 0) {
+                    // Удаление записывается в журнал до изменения таблицы,
+                    // поэтому при ошибке записи таблица не изменяется
+                    log.appendDeletes(deleted);
+                    table.deleteRows(deleted);
+                }
+                break;
+            }
+        }
+        if (deleted.length > 0) {
+            markTableAsDirty(tableName);
+            maybeScheduleCompaction(tableName, table);
+        }
+        return deleted.length;
+    }
+
+    /**
+     * Изменяет строки таблицы: старые версии строк помечаются удаленными, а
+     * новые добавляются в конец таблицы
+     *
+     * @param changes новые значения полей по порядковым номерам полей в схеме,
+     * разобранные по типам полей
+     * @param rowMatcher находит номера изменяемых строк в снимке текущей
+     * таблицы
+     * @return количество измененных строк
+     */
+    public int updateRows(String tableName, BiFunction<DataTable, TableSnapshot, int[]> rowMatcher,
+            Map<Integer, Object> changes) throws IOException {
+        WriteAheadLog log = getLog(tableName);
+        DataTable table;
+        DataTable.UpdatedRows updated;
+        while (true) {
+            table = findWritableTable(tableName);
+            TableSnapshot snapshot = table.snapshot();
+            int[] rows = rowMatcher.apply(table, snapshot);
+            synchronized (log) {
+                if (!isLoaded(tableName, table)) {
+                    continue;
+                }
+                updated = table.prepareUpdate(currentRows(table, snapshot, rows, rowMatcher), changes);
+                if (updated.oldRows().length > 0) {
+                    log.appendUpdates(updated, table.getSchema());
+                    table.applyUpdate(updated);
+                }
+                break;
+            }
+        }
+        if (updated.oldRows().length > 0) {
+            markTableAsDirty(tableName);
+            maybeScheduleCompaction(tableName, table);
+        }
+        return updated.oldRows().length;
+    }
+
+    /**
+     * Строки ищутся по снимку без блокировки журнала. Если после снятия
+     * снимка строки удалялись, изменялись (старая версия строки могла быть
+     * заменена новой) или перенумеровывались уплотнением, строки ищутся
+     * заново по текущему снимку. Вызывается под блокировкой журнала таблицы,
+     * под которой выполняются все эти изменения
+     */
+    private static int[] currentRows(DataTable table, TableSnapshot snapshot, int[] rows,
+            BiFunction<DataTable, TableSnapshot, int[]> rowMatcher) {
+        return table.isModifiedSince(snapshot) ? rowMatcher.apply(table, table.snapshot()) : rows;
+    }
+
+    private DataTable findWritableTable(String tableName) {
+        DataTable table = findTable(tableName)
+                .orElseThrow(() -> new ApplicationException("Таблица не найдена: " + tableName));
+        if (table.getSchema().getStorageType() == StorageType.MAPPED) {
+            throw new ApplicationException("Таблица " + tableName + " отображена в память и доступна только для чтения");
+        }
+        return table;
+    }
+
+    /**
+     * Делает контрольные точки таблиц, измененных с предыдущей контрольной
+     * точки; выполняется фоновой задачей
+     */
+    private void checkpointModifiedTables() {
+        for (String tableName : dirtyTables.keySet()) {
+            DataTable table = tables.get(tableName);
+            if (table == null || dirtyTables.remove(tableName) == null) {
+                continue;
+            }
+            try {
+                checkpoint(table);
+            } catch (Exception e) {
+                markTableAsDirty(tableName);
+                exceptionHandler.handleException(e, "Ошибка контрольной точки таблицы " + tableName);
+            }
+        }
     }
 
     public boolean saveTable(String tableName) throws IOException {
@@ -174,12 +742,12 @@ public class TableRepository {
             return false;
         }
 
-        Path dataPath = dataDirectory.resolve(tableName + ".json");
+        dirtyTables.remove(tableName);
         try {
-            saveData(dataPath, table);
-            dirtyTables.remove(tableName);
+            checkpoint(table);
             return true;
         } catch (IOException e) {
+            markTableAsDirty(tableName);
             exceptionHandler.handleException(e, "Ошибка при сохранении таблицы " + tableName);
             throw e;
         }
@@ -205,25 +773,25 @@ public class TableRepository {
             try {
                 String tableName = entry.getKey();
                 DataTable table = entry.getValue();
-                Path dataPath = dataDirectory.resolve(tableName + ".json");
-
-                saveData(dataPath, table);
+                dirtyTables.remove(tableName);
+                checkpoint(table);
             } catch (IOException e) {
+                markTableAsDirty(entry.getKey());
                 exceptionHandler.handleException(e, "Ошибка при сохранении таблицы " + entry.getKey());
                 throw e;
             }
         }
-        dirtyTables.clear();
     }
 
     public boolean createTable(TableSchema schema) throws IOException {
         String tableName = schema.getTableName();
-        if (tables.containsKey(tableName)) {
+        if (schemas.putIfAbsent(tableName, schema) != null) {
             return false;
         }
 
         DataTable newTable = new DataTable(schema);
         tables.put(tableName, newTable);
+        lastAccess.put(tableName, accessClock.incrementAndGet());
 
         CompletableFuture<Void> schemaFuture = CompletableFuture.runAsync(() -> {
             try {
@@ -248,25 +816,129 @@ public class TableRepository {
             return true;
         } catch (Exception e) {
             tables.remove(tableName);
+            lastAccess.remove(tableName);
+            schemas.remove(tableName);
             throw new IOException("Ошибка при создании таблицы: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Строит индекс по полю таблицы и сохраняет его в схеме, чтобы индекс
+     * восстанавливался при следующей загрузке
+     *
+     * @return false, если индекс по этому полю уже существует
+     */
+    public boolean createIndex(String tableName, String fieldName, IndexType indexType) throws IOException {
+        DataTable table = findTable(tableName)
+                .orElseThrow(() -> new ApplicationException("Таблица не найдена: " + tableName));
+
+        if (!table.createIndex(fieldName, indexType)) {
+            return false;
+        }
+        dataSaver.saveSchema(tablesDirectory, table.getSchema());
+        tableChanged(tableName);
+        return true;
+    }
+
+    /**
+     * Переводит файл данных таблицы в другой формат и меняет способ хранения.
+     * Схема с новым форматом сохраняется только после записи нового файла, а
+     * журнал очищается и старый файл удаляется только после сохранения схемы,
+     * поэтому при сбое на любом шаге таблица загружается из согласованной пары
+     * схемы и файла (сжатие файла загрузчик определяет по его содержимому).
+     * Если меняется способ хранения, таблица выгружается из памяти и при
+     * следующем обращении загружается заново
+     *
+     * @return false, если таблица уже хранится в этом формате и хранилище
+     */
+    public boolean convertTable(String tableName, DataFormat format, Compression compression, StorageType storageType)
+            throws IOException {
+        DataTable table = findTable(tableName)
+                .orElseThrow(() -> new ApplicationException("Таблица не найдена: " + tableName));
+        TableSchema schema = table.getSchema();
+        DataFormat oldFormat = schema.getDataFormat();
+        Compression oldCompression = schema.getCompression();
+        StorageType oldStorageType = schema.getStorageType();
+        if (oldFormat == format && oldCompression == compression && oldStorageType == storageType) {
+            return false;
+        }
+        if (storageType == StorageType.MAPPED && (format != DataFormat.BINARY || compression != Compression.NONE)) {
+            throw new IllegalArgumentException("Отобразить в память можно только несжатый двоичный файл данных");
+        }
+
+        WriteAheadLog log = getLog(tableName);
+        synchronized (schema) {
+            synchronized (log) {
+                finishCompaction(schema, log);
+                if (table.snapshot().hasDeletedRows()) {
+                    compact(table, log);
+                }
+                Path oldPath = dataFilePath(schema);
+                Path newPath = dataDirectory.resolve(tableName + format.getExtension());
+                if (oldStorageType != StorageType.MAPPED || oldFormat != format || oldCompression != compression) {
+                    dataSaver.saveData(dataDirectory, table, format, compression);
+                }
+                schema.setDataFormat(format);
+                schema.setCompression(compression);
+                schema.setStorageType(storageType);
+                try {
+                    dataSaver.saveSchema(tablesDirectory, schema);
+                } catch (IOException e) {
+                    schema.setDataFormat(oldFormat);
+                    schema.setCompression(oldCompression);
+                    schema.setStorageType(oldStorageType);
+                    if (!newPath.equals(oldPath)) {
+                        Files.deleteIfExists(newPath);
+                    }
+                    throw e;
+                }
+                dirtyTables.remove(tableName);
+                log.truncate();
+                if (!newPath.equals(oldPath)) {
+                    Files.deleteIfExists(oldPath);
+                }
+                if (storageType != oldStorageType) {
+                    tables.remove(tableName, table);
+                    lastAccess.remove(tableName);
+                }
+            }
+        }
+        tableChanged(tableName);
+        return true;
+    }
+
+    private Path dataFilePath(TableSchema schema) {
+        return dataDirectory.resolve(schema.getTableName() + schema.getDataFormat().getExtension());
+    }
+
     public boolean dropTable(String tableName) throws IOException {
-        DataTable table = tables.remove(tableName);
-        if (table == null) {
+        TableSchema schema = schemas.remove(tableName);
+        if (schema == null) {
             return false;
         }
+        tables.remove(tableName);
+        lastAccess.remove(tableName);
+        tableChanged(tableName);
 
         dirtyTables.remove(tableName);
 
         Path schemaPath = tablesDirectory.resolve(tableName + ".json");
-        Path dataPath = dataDirectory.resolve(tableName + ".json");
+        Path dataPath = dataFilePath(schema);
+        Path compactedPath = TableLoader.compactedFilePath(dataDirectory, schema);
+        WriteAheadLog log = logs.remove(tableName);
 
         CompletableFuture.runAsync(() -> {
             try {
+                if (log != null) {
+                    log.delete();
+                } else {
+                    for (Path segment : WriteAheadLog.segments(walDirectory, tableName)) {
+                        Files.deleteIfExists(segment);
+                    }
+                }
                 Files.deleteIfExists(schemaPath);
                 Files.deleteIfExists(dataPath);
+                Files.deleteIfExists(compactedPath);
             } catch (IOException e) {
                 exceptionHandler.handleException(e, "Ошибка при удалении файлов таблицы " + tableName);
             }
@@ -277,5 +949,34 @@ public class TableRepository {
 
     public void markTableAsDirty(String tableName) {
         dirtyTables.put(tableName, true);
+        tableChanged(tableName);
+    }
+
+    /**
+     * Делает недействительными кэшированные результаты запросов к таблице
+     */
+    private void tableChanged(String tableName) {
+        tableVersions.merge(tableName, 1L, Long::sum);
+        queryCache.invalidate(tableName);
+    }
+
+    /**
+     * Сбрасывает и закрывает журналы предзаписи при остановке приложения
+     */
+    public void close() {
+        if (autosaveTask != null) {
+            autosaveTask.cancel(false);
+        }
+        if (checkpointTask != null) {
+            checkpointTask.cancel(false);
+        }
+        for (Map.Entry<String, WriteAheadLog> entry : logs.entrySet()) {
+            try {
+                entry.getValue().close();
+            } catch (IOException e) {
+                exceptionHandler.handleException(e, "Ошибка при закрытии журнала таблицы " + entry.getKey());
+            }
+        }
+        logs.clear();
     }
 }
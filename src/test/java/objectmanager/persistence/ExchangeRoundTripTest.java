@@ -0,0 +1,62 @@
+package objectmanager.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import objectmanager.model.DataTable;
+import objectmanager.model.TableSchema;
+
+/**
+ * Выгрузка строк командой export и загрузка файла обратно командой import
+ * сохраняют значения без изменений
+ */
+class ExchangeRoundTripTest {
+
+    private static final Object[][] ROWS = {
+            {1L, "одна строка", 1.5},
+            {2L, "line1\nline2", -2.0},
+            {3L, "cr\r\nlf, \"кавычки\"", 0.0},
+            {4L, "", null},
+            {5L, null, 3.25}
+    };
+
+    @TempDir
+    Path directory;
+
+    @ParameterizedTest
+    @EnumSource(ExchangeFormat.class)
+    void exportedRowsImportUnchanged(ExchangeFormat format) throws IOException {
+        DataTable table = new DataTable(schema());
+        for (Object[] row : ROWS) {
+            table.addRow(row);
+        }
+        Path file = directory.resolve("rows" + "." + format.getName());
+
+        long exported = new DataExporter().export(table.snapshot(), null, null, file, format);
+        List<Object[][]> chunks = new DataImporter(Runnable::run).parse(file, schema(), format);
+
+        assertEquals(ROWS.length, exported);
+        List<Object[]> imported = new ArrayList<>();
+        chunks.forEach(chunk -> imported.addAll(List.of(chunk)));
+        assertArrayEquals(ROWS, imported.toArray(new Object[0][]));
+    }
+
+    private static TableSchema schema() {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("id", "long");
+        fields.put("name", "string");
+        fields.put("score", "double");
+        return new TableSchema("rows", fields);
+    }
+}
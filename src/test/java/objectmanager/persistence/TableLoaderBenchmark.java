@@ -0,0 +1,128 @@
+package objectmanager.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import objectmanager.model.DataObject;
+import objectmanager.model.DataTable;
+import objectmanager.model.TableSchema;
+
+/**
+ * Время загрузки и пиковый объем кучи при чтении большого JSON файла данных
+ * потоковым {@link TableLoader} и прежним способом - разбором всего файла в
+ * дерево JSON. Не входит в {@code mvn test}, запускается отдельно; количество
+ * строк задает свойство {@code benchmark.rows}:
+ * <pre>
+ * mvn test -Dtest=TableLoaderBenchmark -Dbenchmark.rows=2000000
+ * </pre>
+ */
+class TableLoaderBenchmark {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 1_000_000);
+    private static final long MB = 1024 * 1024;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void loadLargeFile() throws IOException {
+        TableSchema schema = schema();
+        Path file = directory.resolve(schema.getTableName() + schema.getDataFormat().getExtension());
+        writeData(file);
+        System.out.printf("Строк: %d, размер файла: %d МБ, максимум кучи: %d МБ%n",
+                ROWS, Files.size(file) / MB, Runtime.getRuntime().maxMemory() / MB);
+        System.out.printf("%-12s %10s %18s %16s%n", "загрузка", "время, мс", "пик кучи, МБ", "таблица, МБ");
+
+        measure("потоковая", () -> new TableLoader().loadData(directory, schema).orElseThrow());
+        measure("дерево JSON", () -> loadTree(file, schema));
+    }
+
+    private static void measure(String name, Supplier<DataTable> loader) {
+        List<MemoryPoolMXBean> pools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+        System.gc();
+        long before = heapUsed();
+        pools.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+        long start = System.nanoTime();
+        DataTable table = loader.get();
+        long elapsed = System.nanoTime() - start;
+
+        long peak = pools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum() - before;
+        System.gc();
+        long retained = heapUsed() - before;
+        assertEquals(ROWS, table.getRowCount());
+        System.out.printf("%-12s %10d %18d %16d%n", name, TimeUnit.NANOSECONDS.toMillis(elapsed),
+                peak / MB, retained / MB);
+    }
+
+    private static long heapUsed() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Загрузка до перехода на потоковое чтение: файл читается в строку и
+     * разбирается в дерево JSON, из которого затем строятся строки таблицы
+     */
+    private static DataTable loadTree(Path file, TableSchema schema) {
+        try {
+            String jsonContent = Files.readString(file);
+            DataTable dataTable = new DataTable(schema);
+            for (JsonElement element : JsonParser.parseString(jsonContent).getAsJsonArray()) {
+                JsonObject jsonObject = element.getAsJsonObject();
+                DataObject dataObject = new DataObject();
+                for (String fieldName : schema.getFieldNames()) {
+                    JsonElement value = jsonObject.get(fieldName);
+                    dataObject.setValue(fieldName, value == null || value.isJsonNull() ? null : value.getAsString());
+                }
+                dataTable.addDataObject(dataObject);
+            }
+            return dataTable;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void writeData(Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("[\n");
+            for (int i = 0; i < ROWS; i++) {
+                writer.write("  {\"id\": \"" + i + "\", \"customer\": \"customer" + (i % 50_000)
+                        + "\", \"amount\": \"" + (i % 1000) + ".5\", \"paid\": \"" + (i % 3 == 0)
+                        + "\", \"created\": \"2024-01-01T00:00:00Z\"}" + (i + 1 < ROWS ? ",\n" : "\n"));
+            }
+            writer.write("]\n");
+        }
+    }
+
+    private static TableSchema schema() {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("id", "long");
+        fields.put("customer", "string");
+        fields.put("amount", "double");
+        fields.put("paid", "boolean");
+        fields.put("created", "timestamp");
+        return new TableSchema("orders", fields);
+    }
+}
@@ -0,0 +1,129 @@
+package objectmanager.repository;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Сравнение {@link ConcurrentHashMap}, которым хранятся таблицы
+ * репозитория, с прежней картой под одним мьютексом, копировавшей
+ * содержимое при каждом обходе. Потоки выполняют смешанную нагрузку:
+ * чтение, запись и обход всех элементов, как при поиске таблицы, вставке и
+ * контрольной точке. Не входит в {@code mvn test}, запускается отдельно:
+ * <pre>
+ * mvn test -Dtest=ConcurrentMapBenchmark
+ * </pre>
+ */
+class ConcurrentMapBenchmark {
+
+    private static final int[] THREADS = {1, 2, 4, 8, 16, 32};
+    private static final int KEYS = 1024;
+    private static final int GET_PERCENT = 90;
+    private static final int PUT_PERCENT = 9;
+    private static final long WARMUP_MILLIS = 300;
+    private static final long MEASURE_MILLIS = 1000;
+
+    @Test
+    void mixedLoad() throws InterruptedException {
+        System.out.printf("Процессоров: %d, ключей: %d, get/put/обход: %d/%d/%d%%%n",
+                Runtime.getRuntime().availableProcessors(), KEYS, GET_PERCENT, PUT_PERCENT,
+                100 - GET_PERCENT - PUT_PERCENT);
+        System.out.printf("%8s %22s %22s%n", "потоков", "мьютекс, тыс. оп/с", "ConcurrentHashMap");
+        for (int threads : THREADS) {
+            double mutex = measure(GlobalMutexMap::new, threads);
+            double concurrent = measure(ConcurrentHashMap::new, threads);
+            System.out.printf("%8d %22.1f %22.1f%n", threads, mutex / 1000, concurrent / 1000);
+            assertTrue(mutex > 0 && concurrent > 0);
+        }
+    }
+
+    /**
+     * @return операций в секунду на всех потоках
+     */
+    private static double measure(Supplier<Map<String, Long>> factory, int threads) throws InterruptedException {
+        Map<String, Long> map = factory.get();
+        String[] keys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "table" + i;
+            map.put(keys[i], (long) i);
+        }
+
+        LongAdder operations = new LongAdder();
+        CountDownLatch finished = new CountDownLatch(threads);
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.MILLISECONDS.toNanos(WARMUP_MILLIS);
+        long measureTo = measureFrom + TimeUnit.MILLISECONDS.toNanos(MEASURE_MILLIS);
+        for (int t = 0; t < threads; t++) {
+            Thread thread = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long count = 0;
+                long sink = 0;
+                long now;
+                while ((now = System.nanoTime()) < measureTo) {
+                    String key = keys[random.nextInt(KEYS)];
+                    int operation = random.nextInt(100);
+                    if (operation < GET_PERCENT) {
+                        Long value = map.get(key);
+                        sink += value == null ? 0 : value;
+                    } else if (operation < GET_PERCENT + PUT_PERCENT) {
+                        map.put(key, now);
+                    } else {
+                        for (Map.Entry<String, Long> entry : map.entrySet()) {
+                            sink += entry.getValue();
+                        }
+                    }
+                    if (now >= measureFrom) {
+                        count++;
+                    }
+                }
+                operations.add(count + (sink == 42 ? 1 : 0));
+                finished.countDown();
+            });
+            thread.start();
+        }
+        finished.await();
+        return operations.sum() * 1000.0 / MEASURE_MILLIS;
+    }
+
+    /**
+     * Прежняя реализация: все операции под одним мьютексом, обход выполняется
+     * по копии содержимого
+     */
+    private static final class GlobalMutexMap<K, V> extends AbstractMap<K, V> {
+
+        private final Map<K, V> map = new HashMap<>();
+        private final Object mutex = new Object();
+
+        @Override
+        public V get(Object key) {
+            synchronized (mutex) {
+                return map.get(key);
+            }
+        }
+
+        @Override
+        public V put(K key, V value) {
+            synchronized (mutex) {
+                return map.put(key, value);
+            }
+        }
+
+        @Override
+        public Set<Entry<K, V>> entrySet() {
+            synchronized (mutex) {
+                return new HashMap<>(map).entrySet();
+            }
+        }
+    }
+}